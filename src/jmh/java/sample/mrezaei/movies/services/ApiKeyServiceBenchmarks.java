@@ -0,0 +1,57 @@
+package sample.mrezaei.movies.services;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.ApiKeyEntity;
+import sample.mrezaei.movies.data.repositories.ApiKeyRepository;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the api key validation of every request against a stubbed repository of many keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiKeyServiceBenchmarks {
+    @Param({"100", "50000"})
+    private int keyCount;
+
+    private ApiKeyService apiKeyService;
+    private String validApiKey;
+    private String invalidApiKey;
+
+    @Setup
+    public void setUp() {
+        var apiKeys = new ArrayList<ApiKeyEntity>(keyCount);
+        for (int i = 1; i <= keyCount; i++) {
+            var apiKey = new ApiKeyEntity();
+            apiKey.setId(i);
+            apiKey.setApiKey(UUID.randomUUID().toString());
+            apiKey.setUsername("user" + i);
+            apiKeys.add(apiKey);
+        }
+        var apiKeyRepository = Mockito.mock(ApiKeyRepository.class);
+        Mockito.doReturn(apiKeys).when(apiKeyRepository).findAll();
+        apiKeyService = new ApiKeyService(apiKeyRepository, new MoviesProperties());
+        apiKeyService.initCache();
+        validApiKey = apiKeys.get(keyCount / 2).getApiKey();
+        invalidApiKey = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean isValidApiKey_valid() {
+        return apiKeyService.isValidApiKey(validApiKey);
+    }
+
+    @Benchmark
+    public boolean isValidApiKey_invalid() {
+        return apiKeyService.isValidApiKey(invalidApiKey);
+    }
+}
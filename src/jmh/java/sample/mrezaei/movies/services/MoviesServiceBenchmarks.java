@@ -0,0 +1,78 @@
+package sample.mrezaei.movies.services;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.jpa.domain.Specification;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.services.model.SearchMoviesRequest;
+import sample.mrezaei.movies.services.search.FullTextIndex;
+import sample.mrezaei.movies.services.search.SearchResultCache;
+import sample.mrezaei.movies.services.search.TitleAutocompleteIndex;
+import sample.mrezaei.movies.services.search.TitleSearchIndex;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the request parsing of `MoviesService` with a stubbed repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoviesServiceBenchmarks {
+    private static final int DISTINCT_DATES = 5_000;
+
+    private MoviesService moviesService;
+    private SearchMoviesRequest searchMoviesRequest;
+    private String[] distinctDates;
+    private int dateIndex;
+
+    @Setup
+    public void setUp() {
+        var moviesRepository = Mockito.mock(MoviesRepository.class);
+        var moviesProperties = new MoviesProperties();
+        moviesService = new MoviesService(
+                moviesRepository,
+                new TitleSearchIndex(moviesRepository, moviesProperties),
+                new TitleAutocompleteIndex(moviesRepository, moviesProperties),
+                new FullTextIndex(moviesRepository, moviesProperties),
+                new CatalogueStatisticsService(moviesRepository),
+                new SearchResultCache(moviesProperties),
+                new ConcurrentMapCacheManager(),
+                moviesProperties
+        );
+        searchMoviesRequest = SearchMoviesRequest.builder()
+                .query("star")
+                .sortBy("releaseDate")
+                .releaseDateFrom("1990")
+                .releaseDateTo("2010-06")
+                .minRating(7.5)
+                .build();
+        // more distinct dates than the parser cache keeps, so most of them are parsed
+        distinctDates = new String[DISTINCT_DATES];
+        for (int i = 0; i < DISTINCT_DATES; i++)
+            distinctDates[i] = LocalDate.of(1900, 1, 1).plusDays(i).toString();
+    }
+
+    @Benchmark
+    public LocalDate getValidReleaseDate_repeatedInput() {
+        return moviesService.getValidReleaseDate("2010-06", false);
+    }
+
+    @Benchmark
+    public LocalDate getValidReleaseDate_distinctInputs() {
+        dateIndex = (dateIndex + 1) % DISTINCT_DATES;
+        return moviesService.getValidReleaseDate(distinctDates[dateIndex], true);
+    }
+
+    @Benchmark
+    public Specification<MovieEntity> getSearchSpecification() {
+        return moviesService.getSearchSpecification(searchMoviesRequest);
+    }
+}
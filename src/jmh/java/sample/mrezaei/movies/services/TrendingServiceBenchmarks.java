@@ -0,0 +1,45 @@
+package sample.mrezaei.movies.services;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks counting a view, which is done by every request of the movie details.
+ * Views follow a skewed distribution over many movies, and are counted by several threads together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TrendingServiceBenchmarks {
+    private static final int MOVIES = 1_000_000;
+
+    private TrendingService trendingService;
+
+    @Setup
+    public void setUp() {
+        trendingService = new TrendingService(Mockito.mock(MoviesService.class), new MoviesProperties());
+        for (int i = 0; i < MOVIES; i++)
+            trendingService.recordView(nextId());
+    }
+
+    @Benchmark
+    public void recordView() {
+        trendingService.recordView(nextId());
+    }
+
+    /**
+     * a few movies have most of the views, like the movies which are trending
+     */
+    private static int nextId() {
+        var random = ThreadLocalRandom.current();
+        return random.nextInt(10) < 8 ? random.nextInt(100) : random.nextInt(MOVIES);
+    }
+}
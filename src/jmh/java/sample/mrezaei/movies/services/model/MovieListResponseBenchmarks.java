@@ -0,0 +1,49 @@
+package sample.mrezaei.movies.services.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks building and serializing a page of the list APIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovieListResponseBenchmarks {
+    private static final int PAGE_SIZE = 50;
+
+    private List<MovieSummary> movies;
+    private ObjectWriter objectWriter;
+
+    @Setup
+    public void setUp() {
+        movies = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= PAGE_SIZE; i++)
+            movies.add(new MovieSummary(i, "Movie title #" + i, LocalDate.of(2000, 1, 1).plusDays(i),
+                    "https://image.tmdb.org/t/p/original/poster" + i + ".jpg", 5 + (i % 50) / 10.0, Genre.Drama, Language.English));
+        objectWriter = new ObjectMapper().writerFor(MovieListResponse[].class);
+    }
+
+    @Benchmark
+    public List<MovieListResponse> fromMovieSummary() {
+        return movies.stream().map(MovieListResponse::fromMovieSummary).toList();
+    }
+
+    @Benchmark
+    public byte[] fromMovieSummaryAndSerialize() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(movies.stream().map(MovieListResponse::fromMovieSummary).toArray(MovieListResponse[]::new));
+    }
+}
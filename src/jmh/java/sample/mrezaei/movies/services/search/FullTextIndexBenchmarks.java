@@ -0,0 +1,54 @@
+package sample.mrezaei.movies.services.search;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.projections.MovieText;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks relevance ranked search of a rare and a common query on a large catalogue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullTextIndexBenchmarks {
+    private static final int MOVIES = 100_000;
+    private static final int WORDS = 5_000;
+
+    @Param({"w17 w4242", "w1 w2 w3"})
+    private String query;
+
+    private FullTextIndex fullTextIndex;
+    private SearchFilters filters;
+
+    @Setup
+    public void setUp() {
+        var movies = new ArrayList<MovieText>(MOVIES);
+        for (int i = 1; i <= MOVIES; i++) {
+            var overview = new StringBuilder();
+            // word frequencies follow a skewed distribution, like words of natural texts
+            for (int j = 1; j <= 20; j++)
+                overview.append(" w").append((int) Math.pow((i * 31L + j * 7919L) % WORDS, 2) / WORDS);
+            movies.add(new MovieText(i, "w" + (i % WORDS) + " w" + (i * 13 % WORDS), overview.toString(), LocalDate.of(2000, 1, 1),
+                    7.0, Genre.Drama, Language.English));
+        }
+        fullTextIndex = new FullTextIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+        fullTextIndex.rebuild(movies);
+        filters = new SearchFilters(query, null, null, 6.0, null, null, false);
+    }
+
+    @Benchmark
+    public FullTextIndex.Hits search() {
+        return fullTextIndex.search(filters, 11, null, 0);
+    }
+}
@@ -0,0 +1,54 @@
+package sample.mrezaei.movies.services.search;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks fuzzy title search on a large catalogue, which should not compare the query with every title.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FuzzyTitleSearchBenchmarks {
+    private static final int MOVIES = 200_000;
+
+    @Param({"lord of the rigns", "intersteler"})
+    private String query;
+
+    private TitleSearchIndex titleSearchIndex;
+    private SearchFilters filters;
+
+    @Setup
+    public void setUp() {
+        var words = new ArrayList<String>();
+        for (int i = 0; i < 20_000; i++)
+            words.add(Integer.toString(i * 7919, 36));
+        words.addAll(List.of("lord", "of", "the", "rings", "interstellar"));
+
+        var movies = new ArrayList<IndexedMovie>(MOVIES);
+        for (int i = 1; i <= MOVIES; i++) {
+            var title = words.get(i % words.size()) + " " + words.get((i * 31) % words.size()) + " " + words.get((i * 17) % words.size());
+            movies.add(new IndexedMovie(i, title, LocalDate.of(2000, 1, 1), 7.0, Genre.Drama, Language.English));
+        }
+        titleSearchIndex = new TitleSearchIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+        titleSearchIndex.rebuild(movies);
+        filters = new SearchFilters(query, null, null, null, null, null, true);
+    }
+
+    @Benchmark
+    public List<IndexedMovie> fuzzySearch() {
+        return titleSearchIndex.search(filters);
+    }
+}
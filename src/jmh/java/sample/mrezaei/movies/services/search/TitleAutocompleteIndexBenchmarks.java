@@ -0,0 +1,66 @@
+package sample.mrezaei.movies.services.search;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.projections.MovieTitle;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks autocomplete lookups on a large catalogue, which should not depend on the number of matched movies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TitleAutocompleteIndexBenchmarks {
+    private static final int MOVIES = 200_000;
+    private static final int WORDS = 20_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "ten", "dor", "an", "el", "vis", "tu", "sha", "ber", "on", "qu", "ix", "ne"};
+
+    @Param({"s", "ka", "kalo", "ten dor"})
+    private String prefix;
+
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    @Setup
+    public void setUp() {
+        titleAutocompleteIndex = new TitleAutocompleteIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+        titleAutocompleteIndex.rebuild(movies());
+    }
+
+    @Benchmark
+    public List<MovieTitle> suggest() {
+        return titleAutocompleteIndex.suggest(prefix, 10);
+    }
+
+    /**
+     * It returns titles of one to six words of a large vocabulary, where words are picked by a skewed distribution like words of natural titles,
+     * so titles share short prefixes but rarely long ones.
+     */
+    static List<MovieTitle> movies() {
+        var random = new Random(42);
+        var words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            var word = new StringBuilder();
+            for (int j = 0, length = 1 + random.nextInt(4); j < length; j++)
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            words[i] = word.toString();
+        }
+        var movies = new ArrayList<MovieTitle>(MOVIES);
+        for (int i = 1; i <= MOVIES; i++) {
+            var title = new StringBuilder();
+            for (int j = 0, length = 1 + random.nextInt(6); j < length; j++)
+                title.append(j == 0 ? "" : " ").append(words[(int) (WORDS * Math.pow(random.nextDouble(), 3))]);
+            movies.add(new MovieTitle(i, title.toString(), random.nextInt(100) / 10.0, random.nextInt(10_000)));
+        }
+        return movies;
+    }
+}
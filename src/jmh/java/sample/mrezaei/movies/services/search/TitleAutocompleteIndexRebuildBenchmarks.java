@@ -0,0 +1,36 @@
+package sample.mrezaei.movies.services.search;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.projections.MovieTitle;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks building the autocomplete trie of a large catalogue, which is done on startup and after every ingestion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TitleAutocompleteIndexRebuildBenchmarks {
+    private List<MovieTitle> movies;
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    @Setup
+    public void setUp() {
+        movies = TitleAutocompleteIndexBenchmarks.movies();
+        titleAutocompleteIndex = new TitleAutocompleteIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+    }
+
+    @Benchmark
+    public TitleAutocompleteIndex rebuild() {
+        titleAutocompleteIndex.rebuild(movies);
+        return titleAutocompleteIndex;
+    }
+}
@@ -4,26 +4,46 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.filter.OncePerRequestFilter;
 import sample.mrezaei.movies.services.ApiKeyService;
+import sample.mrezaei.movies.services.RateLimitService;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is access control configuration
  * Swagger APIs excluded from authentication and are open.
  * Other APIs should include valid apiKey
+ * Requests of each apiKey are limited to its quota, requests over the quota are rejected by `429 Too Many Requests`
  */
 @Configuration
-@AllArgsConstructor
 public class AccessControlConfiguration extends OncePerRequestFilter {
+    public static final String VALIDATION_TIMER = "movies.api.key.validation";
 
-    private ApiKeyService apiKeyService;
+    private final ApiKeyService apiKeyService;
+
+    private final RateLimitService rateLimitService;
+
+    // the timers of all outcomes are registered once, so recording does not look them up on every request
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+    private final Timer rateLimitedTimer;
+
+    public AccessControlConfiguration(ApiKeyService apiKeyService, RateLimitService rateLimitService, MeterRegistry meterRegistry) {
+        this.apiKeyService = apiKeyService;
+        this.rateLimitService = rateLimitService;
+        this.validTimer = buildValidationTimer(meterRegistry, "valid");
+        this.invalidTimer = buildValidationTimer(meterRegistry, "invalid");
+        this.rateLimitedTimer = buildValidationTimer(meterRegistry, "rate_limited");
+    }
 
     private static final List<String> OPEN_URI_LIST = Arrays.asList(
             "/swagger-ui/",
@@ -43,14 +63,27 @@ public class AccessControlConfiguration extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain)
             throws ServletException, IOException {
-        var apiKey = request.getParameterMap().entrySet().stream()
-                .filter(entry -> entry.getKey().equals("api_key"))
-                .map(Map.Entry::getValue)
-                .findFirst();
-        if (apiKey.isEmpty() || !apiKeyService.isValidApiKey(apiKey.get()[0])) {
+        var start = System.nanoTime();
+        var quota = apiKeyService.findQuota(request.getParameter("api_key"));
+        if (quota == null) {
+            invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        var waitNanos = rateLimitService.tryAcquire(quota);
+        (waitNanos > 0 ? rateLimitedTimer : validTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (waitNanos > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimitService.toRetryAfterSeconds(waitNanos)));
         } else {
             filterChain.doFilter(request, response);
         }
     }
+
+    private static Timer buildValidationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(VALIDATION_TIMER)
+                .description("Time of api key validation and rate limiting of requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
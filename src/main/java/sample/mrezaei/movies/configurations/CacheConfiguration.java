@@ -0,0 +1,35 @@
+package sample.mrezaei.movies.configurations;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class configures the bounded in-process caches of the responses.
+ * Caffeine records hit, miss and eviction statistics, which are published as `cache.*` metrics by actuator.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+    public static final String MOVIE_DETAILS_CACHE = "movieDetails";
+    public static final String POPULAR_MOVIES_CACHE = "popularMovies";
+
+    @Bean
+    public CacheManager cacheManager(MoviesProperties moviesProperties) {
+        var cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(MOVIE_DETAILS_CACHE, buildCache(moviesProperties.getCache().getMovieDetails()));
+        cacheManager.registerCustomCache(POPULAR_MOVIES_CACHE, buildCache(moviesProperties.getCache().getPopularMovies()));
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> buildCache(MoviesProperties.CacheSpec cacheSpec) {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheSpec.getMaximumSize())
+                .expireAfterWrite(cacheSpec.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+}
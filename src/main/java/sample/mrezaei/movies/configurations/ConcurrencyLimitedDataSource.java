@@ -0,0 +1,114 @@
+package sample.mrezaei.movies.configurations;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This data source lets at most `maxConcurrency` connections be open at the same time.
+ * Other callers wait in a fair queue of a semaphore, which parks virtual threads without pinning,
+ * instead of all of them competing for the connections of the pool.
+ * The permit of a connection is released when the connection is closed.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutMillis;
+
+    public ConcurrencyLimitedDataSource(DataSource targetDataSource, int maxConcurrency, long acquireTimeoutMillis) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return getLimitedConnection(this::getTargetConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return getLimitedConnection(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return number of connections which can be opened without waiting
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return approximate number of callers which are waiting for a connection
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * It closes the pool of the target data source when the application is shut down.
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    private Connection getTargetConnection() throws SQLException {
+        return obtainTargetDataSource().getConnection();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("database concurrency limit is reached, timed out after " + acquireTimeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted while waiting for database concurrency limit", e);
+        }
+    }
+
+    private Connection getLimitedConnection(ConnectionSupplier connectionSupplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = connectionSupplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        var released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    // the permit is released only once, even if the connection is closed several times
+                    if (method.getName().equals("close") && released.compareAndSet(false, true))
+                        permits.release();
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
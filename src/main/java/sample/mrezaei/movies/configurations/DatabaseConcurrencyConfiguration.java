@@ -0,0 +1,58 @@
+package sample.mrezaei.movies.configurations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * This class limits the number of concurrent database calls when requests are handled by virtual threads.
+ * With platform threads the size of the Tomcat pool limits them, but every request gets its own virtual thread,
+ * so without a limit thousands of them compete for the connection pool and time out together.
+ * The limit is the size of the Hikari pool and callers over the limit wait in a fair queue.
+ * In-memory structures which can be changed by request threads are guarded by `ReentrantLock` instead of `synchronized`,
+ * so a virtual thread which waits for a lock does not pin its carrier thread.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DatabaseConcurrencyConfiguration {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikariDataSource)
+                    return new ConcurrencyLimitedDataSource(
+                            hikariDataSource,
+                            hikariDataSource.getMaximumPoolSize(),
+                            hikariDataSource.getConnectionTimeout()
+                    );
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * The saturation of the gate is published next to the `hikaricp.*` metrics of the pool.
+     */
+    @Bean
+    public MeterBinder databaseConcurrencyMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitedDataSource limitedDataSource) {
+                Gauge.builder("movies.database.gate.available", limitedDataSource, ConcurrencyLimitedDataSource::getAvailablePermits)
+                        .description("Number of database calls which can start without waiting")
+                        .register(registry);
+                Gauge.builder("movies.database.gate.waiting", limitedDataSource, ConcurrencyLimitedDataSource::getQueueLength)
+                        .description("Number of database calls which are waiting for the gate")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package sample.mrezaei.movies.configurations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import sample.mrezaei.movies.services.ingestion.ImportFormat;
+import sample.mrezaei.movies.services.ingestion.MoviesImportService;
+
+import java.io.BufferedInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This runner ingests the file of `movies.ingestion.file` when the application starts, e.g.
+ * `java -jar app.jar --movies.ingestion.file=movies.csv --spring.main.web-application-type=none`
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "movies.ingestion", name = "file")
+public class MoviesIngestionRunner implements ApplicationRunner {
+    private final MoviesImportService moviesImportService;
+
+    private final MoviesProperties moviesProperties;
+
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        var file = Path.of(moviesProperties.getIngestion().getFile());
+        log.info("ingesting movies of {}", file);
+        try (var input = new BufferedInputStream(Files.newInputStream(file))) {
+            var report = moviesImportService.importMovies(input, ImportFormat.fromFileName(file.toString()));
+            log.info("ingested {} rows in {}: {} written, {} rejected, {} rows/s",
+                    report.readRows(), report.duration(), report.writtenRows(), report.rejectedRows(), report.rowsPerSecond());
+            report.errors().forEach(error -> log.warn("rejected {}", error));
+        }
+        if (moviesProperties.getIngestion().isExitOnFinish())
+            System.exit(SpringApplication.exit(applicationContext));
+    }
+}
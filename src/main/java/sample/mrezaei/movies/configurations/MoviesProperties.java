@@ -0,0 +1,160 @@
+package sample.mrezaei.movies.configurations;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * This class keeps the application specific settings which are defined under `movies` in application.yaml
+ */
+@Data
+@ConfigurationProperties(prefix = "movies")
+public class MoviesProperties {
+
+    private Search search = new Search();
+
+    private Cache cache = new Cache();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private Http http = new Http();
+
+    private Batch batch = new Batch();
+
+    private Ingestion ingestion = new Ingestion();
+
+    private Trending trending = new Trending();
+
+    @Data
+    public static class Search {
+        /**
+         * If it is enabled, title search is answered by the in-memory n-gram index instead of a `LIKE` query.
+         */
+        private boolean inMemoryIndex = true;
+        /**
+         * Search results which have at most this number of movies are loaded completely and kept in the search result cache.
+         */
+        private int maxCachedResultSize = 200;
+        /**
+         * Maximum number of typos in every word of a fuzzy query, which is 1 or 2. Longer words can have more typos up to this limit.
+         */
+        private int maxEditDistance = 2;
+        /**
+         * If it is enabled, title autocomplete is answered by the in-memory prefix trie instead of a `LIKE` query.
+         */
+        private boolean autocompleteIndex = true;
+        /**
+         * If it is enabled, titles and overviews are kept in an in-memory inverted index, which sorts search results by relevance.
+         */
+        private boolean fullTextIndex = true;
+        /**
+         * Number of the best movies which every node of the trie keeps, it is the maximum number of suggestions
+         */
+        private int autocompleteSize = 10;
+    }
+
+    @Data
+    public static class Http {
+        /**
+         * `max-age` of the `Cache-Control` header of cacheable responses
+         */
+        private Duration cacheMaxAge = Duration.ofMinutes(1);
+        /**
+         * If it is enabled, movies pages are cached as final JSON and gzip bytes, which are written without serialization.
+         */
+        private boolean preSerializedResponses = true;
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * Maximum number of ids which can be requested together
+         */
+        private int maxSize = 100;
+    }
+
+    @Data
+    public static class Ingestion {
+        /**
+         * If it is set, the file is ingested when the application starts, the format is found by its extension
+         */
+        private String file;
+        /**
+         * If it is enabled, the application exits after ingesting the file
+         */
+        private boolean exitOnFinish = true;
+        /**
+         * If it is set, the files of this directory can be ingested by the `ingestion` management endpoint
+         */
+        private String directory;
+        /**
+         * Number of movies which are written by each JDBC batch and transaction
+         */
+        private int batchSize = 1000;
+    }
+
+    @Data
+    public static class Trending {
+        /**
+         * Views are counted in time slots of this duration, and a new slot is started at this interval
+         */
+        private Duration slotDuration = Duration.ofMinutes(5);
+        /**
+         * Number of time slots, views which are older than all slots are forgotten
+         */
+        private int slots = 12;
+        /**
+         * Views lose half of their weight after this time
+         */
+        private Duration halfLife = Duration.ofMinutes(30);
+        /**
+         * Number of counters of every row of the count-min sketch, more counters make smaller overestimates
+         */
+        private int sketchWidth = 4096;
+        /**
+         * Maximum number of trending movies
+         */
+        private int size = 20;
+    }
+
+    @Data
+    public static class RateLimit {
+        private boolean enabled = true;
+        /**
+         * The quota of api keys which do not have their own quota
+         */
+        private int defaultRequestsPerSecond = 20;
+        private int defaultBurst = 40;
+    }
+
+    @Data
+    public static class Cache {
+        private CacheSpec movieDetails = new CacheSpec(10_000, Duration.ofMinutes(10));
+        private CacheSpec popularMovies = new CacheSpec(100, Duration.ofMinutes(1));
+        /**
+         * The maximum size of search results is the total number of cached movies of all results
+         */
+        private CacheSpec searchResults = new CacheSpec(100_000, Duration.ofMinutes(10));
+        /**
+         * The maximum size of serialized responses is the total number of cached bytes
+         */
+        private CacheSpec serializedResponses = new CacheSpec(32 * 1024 * 1024, Duration.ofMinutes(10));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        /**
+         * Maximum number of entries, the least valuable entries are evicted by the W-TinyLFU policy of Caffeine
+         */
+        private long maximumSize;
+        /**
+         * Entries expire after this time from being written
+         */
+        private Duration timeToLive;
+    }
+}
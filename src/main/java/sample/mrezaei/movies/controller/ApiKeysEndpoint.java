@@ -0,0 +1,23 @@
+package sample.mrezaei.movies.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import sample.mrezaei.movies.services.ApiKeyService;
+
+/**
+ * This actuator endpoint reloads the api keys on demand, e.g. right after a key is added or revoked.
+ * `POST /actuator/apikeys` loads all keys again.
+ */
+@Component
+@Endpoint(id = "apikeys")
+@RequiredArgsConstructor
+public class ApiKeysEndpoint {
+    private final ApiKeyService apiKeyService;
+
+    @WriteOperation
+    public void reload() {
+        apiKeyService.reload();
+    }
+}
@@ -0,0 +1,60 @@
+package sample.mrezaei.movies.controller;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.services.ingestion.ImportFormat;
+import sample.mrezaei.movies.services.ingestion.ImportReport;
+import sample.mrezaei.movies.services.ingestion.MoviesImportService;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This actuator endpoint ingests a movies file of the ingestion directory on demand.
+ * `POST /actuator/ingestion` with `{"file": "movies.csv"}` returns the report of the ingestion.
+ * It only exists when `movies.ingestion.directory` is set, and it must also be added to the exposed management endpoints.
+ */
+@Component
+@Endpoint(id = "ingestion")
+@ConditionalOnProperty(prefix = "movies.ingestion", name = "directory")
+public class IngestionEndpoint {
+    private final MoviesImportService moviesImportService;
+    private final Path directory;
+
+    public IngestionEndpoint(MoviesImportService moviesImportService, MoviesProperties moviesProperties) {
+        this.moviesImportService = moviesImportService;
+        this.directory = Path.of(moviesProperties.getIngestion().getDirectory()).toAbsolutePath().normalize();
+    }
+
+    @WriteOperation
+    public ImportReport ingest(String file) throws IOException {
+        var path = resolve(file);
+        try (var input = new BufferedInputStream(Files.newInputStream(path))) {
+            return moviesImportService.importMovies(input, ImportFormat.fromFileName(path.getFileName().toString()));
+        }
+    }
+
+    /**
+     * This function resolves the file against the ingestion directory.
+     * Both paths are compared after resolving their symbolic links, so a link can not point out of the directory.
+     *
+     * @param file file name, or a path relative to the ingestion directory
+     * @return real path of the file
+     * @throws InvalidEndpointRequestException if the file is not a regular file of the ingestion directory
+     */
+    private Path resolve(String file) throws IOException {
+        var path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory) || !Files.isRegularFile(path))
+            throw new InvalidEndpointRequestException("file is not found in the ingestion directory", "invalid file");
+        var realPath = path.toRealPath();
+        if (!realPath.startsWith(directory.toRealPath()))
+            throw new InvalidEndpointRequestException("file is not found in the ingestion directory", "invalid file");
+        return realPath;
+    }
+}
@@ -2,21 +2,50 @@ package sample.mrezaei.movies.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.services.MoviesExportService;
 import sample.mrezaei.movies.services.MoviesService;
+import sample.mrezaei.movies.services.RatingsService;
+import sample.mrezaei.movies.services.TrendingService;
 import sample.mrezaei.movies.services.model.MovieDetailsResponse;
+import sample.mrezaei.movies.services.model.MovieExportResponse;
 import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MovieRatingRequest;
+import sample.mrezaei.movies.services.model.MovieRatingResponse;
+import sample.mrezaei.movies.services.model.MovieSuggestionResponse;
+import sample.mrezaei.movies.services.model.MoviesBatchResponse;
+import sample.mrezaei.movies.services.model.MoviesPage;
+import sample.mrezaei.movies.services.model.SearchFacetsResponse;
 import sample.mrezaei.movies.services.model.SearchMoviesRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This Controller class provides movies related Rest APIs
@@ -28,30 +57,74 @@ import java.util.List;
 @Tag(name = "Movies")
 public class MoviesController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private MoviesService moviesService;
 
+    private MoviesProperties moviesProperties;
+
+    private SerializedResponseCache serializedResponseCache;
+
+    private MoviesExportService moviesExportService;
+
+    private RatingsService ratingsService;
+
+    private TrendingService trendingService;
+
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieListResponse.class))))
     @Operation(
             summary = "Get popular movies",
-            description = "Returns list of popular movies. page numbers are in 1-based system."
+            description = "Returns list of popular movies. page numbers are in 1-based system. " +
+                    "The cursor of the next page is returned in the `" + NEXT_CURSOR_HEADER + "` header."
     )
     @GetMapping("popular")
-    public List<MovieListResponse> getPopularMovies(
+    public ResponseEntity<?> getPopularMovies(
             @Parameter(
                     description = "page number",
                     required = false
             )
             @Min(1)
-            @RequestParam(required = false) Integer page
+            @RequestParam(required = false) Integer page,
+
+            @Parameter(
+                    description = "cursor of the next page, taken from the `" + NEXT_CURSOR_HEADER + "` header of the previous page. " +
+                            "It can not be used together with page",
+                    required = false
+            )
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(
+                    description = "return the approximate number of all movies in the `" + TOTAL_COUNT_HEADER + "` header",
+                    required = false
+            )
+            @RequestParam(name = "include_total", required = false, defaultValue = "false") boolean includeTotal,
+
+            @Parameter(hidden = true)
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+
+            WebRequest webRequest
     ) {
-        return moviesService.getPopularMovies(page);
+        // the version is checked before loading the page, so a not modified response costs no database work
+        var version = moviesService.getPopularMoviesVersion(includeTotal);
+        if (version != null && webRequest.checkNotModified(version.eTag(), version.lastModified().toEpochMilli()))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(getCacheControl()).build();
+        if (moviesProperties.getHttp().isPreSerializedResponses())
+            return serializedResponseCache.get(Arrays.asList("popular", page, cursor, includeTotal), true,
+                    () -> moviesService.getPopularMovies(page, cursor, includeTotal)).toResponse(acceptEncoding, getCacheControl());
+        return toResponse(moviesService.getPopularMovies(page, cursor, includeTotal), getCacheControl());
     }
 
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieListResponse.class))))
     @Operation(
             summary = "Search in movies",
-            description = "Returns the list of movies searched by query and sorted and filtered if needed."
+            description = "Returns the list of movies searched by query and sorted and filtered if needed. " +
+                    "The cursor of the next page is returned in the `" + NEXT_CURSOR_HEADER + "` header."
     )
     @GetMapping("search")
-    public List<MovieListResponse> searchMovies(
+    public ResponseEntity<?> searchMovies(
             @Parameter(
                     description = "search query. this parameter searches by title",
                     required = true
@@ -60,9 +133,10 @@ public class MoviesController {
             @RequestParam(name = "query") String query,
 
             @Parameter(
-                    description = "sorting column",
+                    description = "sorting column. `relevance` returns the movies which have any word of the query in their title or overview, " +
+                            "the most relevant first",
                     required = false,
-                    schema = @Schema(allowableValues = {"id", "releaseDate", "averageRating"})
+                    schema = @Schema(allowableValues = {"id", "releaseDate", "averageRating", "relevance"})
             )
             @RequestParam(name = "sort_by", required = false, defaultValue = "id") String sortBy,
 
@@ -97,27 +171,265 @@ public class MoviesController {
             )
             @Min(value = 1, message = "Minimum rating must be at least 1")
             @Max(value = 10, message = "Maximum rating cannot exceed 10")
-            @RequestParam(name = "filter_min_rate", required = false) Double minRate
+            @RequestParam(name = "filter_min_rate", required = false) Double minRate,
+
+            @Parameter(
+                    description = "filter by genres, movies of any of the comma separated genres are returned",
+                    required = false
+            )
+            @RequestParam(name = "filter_genre", required = false) Set<Genre> genres,
+
+            @Parameter(
+                    description = "filter by languages, movies of any of the comma separated languages are returned",
+                    required = false
+            )
+            @RequestParam(name = "filter_language", required = false) Set<Language> languages,
+
+            @Parameter(
+                    description = "match every word of the query with up to two typos, e.g. `lord of the rigns`",
+                    required = false
+            )
+            @RequestParam(name = "fuzzy", required = false, defaultValue = "false") boolean fuzzy,
+
+            @Parameter(
+                    description = "cursor of the next page, taken from the `" + NEXT_CURSOR_HEADER + "` header of the previous page " +
+                            "with the same sort parameters",
+                    required = false
+            )
+            @RequestParam(name = "cursor", required = false) String cursor,
+
+            @Parameter(
+                    description = "return the number of all results in the `" + TOTAL_COUNT_HEADER + "` header, when it is available",
+                    required = false
+            )
+            @RequestParam(name = "include_total", required = false, defaultValue = "false") boolean includeTotal,
+
+            @Parameter(hidden = true)
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
         var direction = Sort.Direction.fromString(sortDirection.toUpperCase());
-        SearchMoviesRequest searchMoviesRequest = new SearchMoviesRequest(query, sortBy, direction, dateFrom, dateTo, minRate);
-        return moviesService.searchMovies(searchMoviesRequest);
+        SearchMoviesRequest searchMoviesRequest = new SearchMoviesRequest(query, sortBy, direction, dateFrom, dateTo, minRate,
+                genres, languages, cursor, includeTotal, fuzzy);
+        if (moviesProperties.getHttp().isPreSerializedResponses())
+            return serializedResponseCache.get(List.of("search", searchMoviesRequest), searchMoviesRequest.dependsOnRatings(),
+                    () -> moviesService.searchMovies(searchMoviesRequest)).toResponse(acceptEncoding, CacheControl.empty());
+        return toResponse(moviesService.searchMovies(searchMoviesRequest), CacheControl.empty());
+    }
+
+    @Operation(
+            summary = "Get trending movies",
+            description = "Returns the most viewed movies of the recent time, by the views of their details. " +
+                    "Recent views weigh more than older ones, and views outside the configured trending window are not counted."
+    )
+    @GetMapping("trending")
+    public ResponseEntity<List<MovieListResponse>> getTrendingMovies(
+            @Parameter(
+                    description = "maximum number of movies, the default is the maximum",
+                    required = false
+            )
+            @Min(1)
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        return ResponseEntity.ok()
+                .cacheControl(getCacheControl())
+                .body(trendingService.getTrendingMovies(limit));
+    }
+
+    @Operation(
+            summary = "Autocomplete movie titles",
+            description = "Returns the best rated movies which a word of their title starts with the prefix, for a search box. " +
+                    "It is answered from memory, so it can be called on every keystroke."
+    )
+    @GetMapping("autocomplete")
+    public ResponseEntity<List<MovieSuggestionResponse>> autocompleteTitles(
+            @Parameter(
+                    description = "typed text, it is matched with the start of the title words, ignoring case",
+                    required = true
+            )
+            @NotBlank(message = "Prefix is empty")
+            @RequestParam(name = "prefix") String prefix,
+
+            @Parameter(
+                    description = "maximum number of movies, the default is the maximum",
+                    required = false
+            )
+            @Min(1)
+            @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        return ResponseEntity.ok()
+                .cacheControl(getCacheControl())
+                .body(moviesService.autocompleteTitles(prefix, limit));
+    }
+
+    @Operation(
+            summary = "Find movies by ids",
+            description = "Returns detailed information of many movies in the order of the ids. " +
+                    "Ids which are not found are returned in `missingIds`."
+    )
+    @GetMapping
+    public MoviesBatchResponse getMoviesByIds(
+            @Parameter(
+                    description = "comma separated movie ids",
+                    required = true,
+                    example = "1,2,3"
+            )
+            @RequestParam(name = "ids") List<Integer> ids
+    ) {
+        return moviesService.getMoviesByIds(ids);
+    }
+
+    @Operation(
+            summary = "Count search results by genre and language",
+            description = "Returns the number of movies of every genre and language which match the search. " +
+                    "The counts of a facet apply all filters except the filter of that facet. " +
+                    "Without a query the whole catalogue is counted."
+    )
+    @GetMapping("search/facets")
+    public SearchFacetsResponse getSearchFacets(
+            @Parameter(
+                    description = "search query. this parameter searches by title",
+                    required = false
+            )
+            @RequestParam(name = "query", required = false) String query,
+
+            @Parameter(
+                    description = "filter by date start, in the same formats as search",
+                    required = false,
+                    example = "2025-01-01"
+            )
+            @Pattern(regexp = "^([0-9]{4})?(-[0-9]{2})?(-[0-9]{2})?$", message = "date format is invalid")
+            @RequestParam(name = "filter_date_from", required = false) String dateFrom,
+
+            @Parameter(
+                    description = "filter by date end, in the same formats as search",
+                    required = false,
+                    example = "2025-12-31"
+            )
+            @Pattern(regexp = "^([0-9]{4})?(-[0-9]{2})?(-[0-9]{2})?$", message = "date format is invalid")
+            @RequestParam(name = "filter_date_to", required = false) String dateTo,
+
+            @Parameter(
+                    description = "filter by minimum rating score of movies",
+                    required = false
+            )
+            @Min(value = 1, message = "Minimum rating must be at least 1")
+            @Max(value = 10, message = "Maximum rating cannot exceed 10")
+            @RequestParam(name = "filter_min_rate", required = false) Double minRate,
+
+            @Parameter(
+                    description = "filter by genres, it applies to the language counts and the total count",
+                    required = false
+            )
+            @RequestParam(name = "filter_genre", required = false) Set<Genre> genres,
+
+            @Parameter(
+                    description = "filter by languages, it applies to the genre counts and the total count",
+                    required = false
+            )
+            @RequestParam(name = "filter_language", required = false) Set<Language> languages,
+
+            @Parameter(
+                    description = "match every word of the query with up to two typos",
+                    required = false
+            )
+            @RequestParam(name = "fuzzy", required = false, defaultValue = "false") boolean fuzzy
+    ) {
+        return moviesService.getSearchFacets(SearchMoviesRequest.builder()
+                .query(query == null || query.isBlank() ? null : query)
+                .releaseDateFrom(dateFrom)
+                .releaseDateTo(dateTo)
+                .minRating(minRate)
+                .genres(genres)
+                .languages(languages)
+                .fuzzy(fuzzy)
+                .build());
+    }
+
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = MovieExportResponse.class)))
+    @Operation(
+            summary = "Export movies",
+            description = "Streams all movies as newline delimited JSON, one movie per line. " +
+                    "Movies are ordered by id, or by their change time when `updated_since` is set."
+    )
+    @GetMapping("export")
+    public void exportMovies(
+            @Parameter(
+                    description = "export only the movies which are changed at or after this time. " +
+                            "`updatedAt` of the last line of the previous export can be used for incremental exports",
+                    required = false,
+                    example = "2025-01-01T00:00:00Z"
+            )
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @RequestParam(name = "updated_since", required = false) Instant updatedSince,
+
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        moviesExportService.export(updatedSince, response.getOutputStream());
     }
 
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the version in `If-None-Match` or `If-Modified-Since`"),
             @ApiResponse(responseCode = "404", description = "Movie not found!"),
     })
     @Operation(
             summary = "Find movie by id",
-            description = "Returns detailed single movies information"
+            description = "Returns detailed single movies information. " +
+                    "The response has an `ETag` of the movie version, so it can be revalidated by `If-None-Match`."
     )
         @GetMapping("{id}")
-        public MovieDetailsResponse getMovieById(
+        public ResponseEntity<MovieDetailsResponse> getMovieById(
                 @Parameter(description = "Movie ID")
                 @Positive
                 @PathVariable("id") Integer id
         ) {
-            return moviesService.getMovieById(id);
+            // the details are cached, so the version is usually known without database work
+            // the body is not serialized when the request matches the ETag
+            var movie = moviesService.getMovieById(id);
+            trendingService.recordView(id);
+            var response = ResponseEntity.ok()
+                    .eTag(movie.eTag())
+                    .cacheControl(getCacheControl());
+            if (movie.lastModified() != null)
+                response.lastModified(movie.lastModified());
+            return response.body(movie);
         }
+
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Accepted, it is written to the database in a few seconds"),
+            @ApiResponse(responseCode = "400", description = "Score is not between 1 and 10"),
+            @ApiResponse(responseCode = "404", description = "Movie not found!"),
+    })
+    @Operation(
+            summary = "Rate a movie",
+            description = "Adds a rating to the movie and returns its average rating, including the ratings which are not written yet. " +
+                    "Ratings are written to the database in periodic batches, so the movie details show them after the next flush."
+    )
+    @PostMapping("{id}/ratings")
+    public ResponseEntity<MovieRatingResponse> rateMovie(
+            @Parameter(description = "Movie ID")
+            @Positive
+            @PathVariable("id") Integer id,
+
+            @Valid
+            @RequestBody MovieRatingRequest request
+    ) {
+        return ResponseEntity.accepted().body(ratingsService.rate(id, request.score()));
+    }
+
+    private CacheControl getCacheControl() {
+        return CacheControl.maxAge(moviesProperties.getHttp().getCacheMaxAge()).cachePublic();
+    }
+
+    private static ResponseEntity<List<MovieListResponse>> toResponse(MoviesPage moviesPage, CacheControl cacheControl) {
+        var response = ResponseEntity.ok().cacheControl(cacheControl);
+        if (moviesPage.nextCursor() != null)
+            response.header(NEXT_CURSOR_HEADER, moviesPage.nextCursor());
+        if (moviesPage.totalCount() != null)
+            response.header(TOTAL_COUNT_HEADER, moviesPage.totalCount().toString());
+        return response.body(moviesPage.movies());
+    }
 }
@@ -0,0 +1,254 @@
+package sample.mrezaei.movies.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.SneakyThrows;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.services.CatalogueStatisticsService;
+import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MoviesPage;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class caches movies pages as final JSON bytes, together with their gzip compressed form.
+ * A hit is written to the response as it is, so it costs neither serialization nor compression.
+ * Entries belong to a version of the catalogue, and they are dropped when a movie is changed.
+ * A change of ratings only drops the pages which have a rated movie or which are ordered or filtered by the rating.
+ */
+@Component
+public class SerializedResponseCache implements MeterBinder {
+    public static final String SERIALIZED_RESPONSES_CACHE = "serializedResponses";
+
+    /**
+     * Smaller responses are not compressed, like the default minimum response size of the server compression
+     */
+    static final int MIN_COMPRESSED_SIZE = 2048;
+
+    private static final String GZIP = "gzip";
+
+    private final Cache<List<Object>, SerializedPage> cache;
+    private final ObjectWriter writer;
+    private final CatalogueStatisticsService catalogueStatisticsService;
+
+    private final ReentrantLock generationLock = new ReentrantLock();
+
+    // the version of the catalogue which the entries belong to, and the generation of the entries which every change advances
+    private volatile Instant version;
+    private volatile long generation;
+
+    public SerializedResponseCache(MoviesProperties moviesProperties, ObjectMapper objectMapper,
+                                   CatalogueStatisticsService catalogueStatisticsService) {
+        var cacheSpec = moviesProperties.getCache().getSerializedResponses();
+        this.catalogueStatisticsService = catalogueStatisticsService;
+        this.writer = objectMapper.writerFor(new TypeReference<List<MovieListResponse>>() {
+        });
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheSpec.getMaximumSize())
+                .weigher((List<Object> key, SerializedPage page) -> page.size())
+                .expireAfterWrite(cacheSpec.getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * This function returns the serialized page of the key, and loads and serializes it if it is not cached.
+     * The loader is not called inside the cache, so a slow database call does not block other entries or pin a virtual thread.
+     *
+     * @param key              parameters which identify the page, they can be null
+     * @param ratingsDependent is the page ordered or filtered by the rating
+     * @param loader           it loads the page when it is not cached
+     * @return serialized page
+     */
+    public SerializedPage get(List<Object> key, boolean ratingsDependent, Supplier<MoviesPage> loader) {
+        var lastModified = catalogueStatisticsService.getLastModified();
+        // the catalogue is changed by another instance
+        if (!Objects.equals(lastModified, version))
+            startGeneration(lastModified, null);
+        // the generation is a part of the key, so a page which is loaded during a change is never served after it
+        var generationKey = Arrays.asList(key, generation);
+        var page = cache.getIfPresent(generationKey);
+        if (page == null) {
+            page = serialize(loader.get(), ratingsDependent);
+            cache.put(generationKey, page);
+        }
+        return page;
+    }
+
+    public Cache<List<Object>, SerializedPage> getCache() {
+        return cache;
+    }
+
+    /**
+     * It publishes the statistics of the cache as `cache.*` metrics, like the caches of the cache manager.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, SERIALIZED_RESPONSES_CACHE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        startGeneration(version, null);
+    }
+
+    /**
+     * The pages which the ratings do not change are kept. The catalogue version advances by the update time of the rated movies,
+     * like the last modification of `CatalogueStatisticsService`, so the kept pages are not dropped as changes of another instance.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        var current = version;
+        var lastModified = event.lastModified();
+        var ratedIds = event.movies().stream().map(MovieRating::id).collect(Collectors.toSet());
+        startGeneration(current == null || (lastModified != null && lastModified.isAfter(current)) ? lastModified : current, ratedIds);
+    }
+
+    /**
+     * This function checks the `Accept-Encoding` header, an encoding with zero quality is not acceptable.
+     * An explicit `gzip` entry takes precedence over `*`.
+     *
+     * @param acceptEncoding value of the header, it can be null
+     * @return true if gzip is acceptable
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        Boolean wildcard = null;
+        for (var encoding : acceptEncoding.split(",")) {
+            var parameters = encoding.split(";");
+            var coding = parameters[0].trim();
+            var gzip = coding.equalsIgnoreCase(GZIP);
+            if (!gzip && !coding.equals("*"))
+                continue;
+            var acceptable = true;
+            for (int i = 1; i < parameters.length; i++) {
+                var parameter = parameters[i].trim();
+                if (parameter.startsWith("q="))
+                    acceptable = !parameter.substring(2).matches("0(\\.0{0,3})?");
+            }
+            if (gzip)
+                return acceptable;
+            wildcard = acceptable;
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * It moves the entries to a new generation of the version, the entries which are not kept are dropped.
+     *
+     * @param lastModified version of the catalogue
+     * @param ratedIds     ids of the rated movies when only ratings are changed, otherwise null and no entry is kept
+     */
+    private void startGeneration(Instant lastModified, Set<Integer> ratedIds) {
+        generationLock.lock();
+        try {
+            var previous = generation;
+            var next = previous + 1;
+            if (ratedIds != null)
+                cache.asMap().forEach((key, page) -> {
+                    if (key.get(1).equals(previous) && !page.isChangedBy(ratedIds))
+                        cache.put(Arrays.asList(key.get(0), next), page);
+                });
+            generation = next;
+            version = lastModified;
+            cache.asMap().keySet().removeIf(key -> !key.get(1).equals(next));
+        } finally {
+            generationLock.unlock();
+        }
+    }
+
+    @SneakyThrows
+    private SerializedPage serialize(MoviesPage moviesPage, boolean ratingsDependent) {
+        var json = writer.writeValueAsBytes(moviesPage.movies());
+        byte[] gzip = null;
+        if (json.length >= MIN_COMPRESSED_SIZE) {
+            var output = new ByteArrayOutputStream(json.length / 4);
+            try (var gzipOutput = new GZIPOutputStream(output)) {
+                gzipOutput.write(json);
+            }
+            gzip = output.toByteArray();
+        }
+        var ids = moviesPage.movies().stream().mapToInt(MovieListResponse::id).toArray();
+        return new SerializedPage(json, gzip, moviesPage.nextCursor(), moviesPage.totalCount(), ids, ratingsDependent);
+    }
+
+    /**
+     * This record is a serialized movies page.
+     *
+     * @param json             UTF-8 JSON of the movies
+     * @param gzip             gzip compressed JSON, it is null when the JSON is too small to be compressed
+     * @param nextCursor       encoded cursor of the next page
+     * @param totalCount       number of all results
+     * @param ids              ids of the movies
+     * @param ratingsDependent is the page ordered or filtered by the rating
+     */
+    public record SerializedPage(
+            byte[] json,
+            byte[] gzip,
+            String nextCursor,
+            Long totalCount,
+            int[] ids,
+            boolean ratingsDependent
+    ) {
+
+        /**
+         * @return the number of cached bytes
+         */
+        int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        /**
+         * @return true if a change of the ratings of the movies can change the page
+         */
+        boolean isChangedBy(Set<Integer> ratedIds) {
+            return ratingsDependent || Arrays.stream(ids).anyMatch(ratedIds::contains);
+        }
+
+        /**
+         * This function builds the response, the compressed body is chosen when the client accepts gzip.
+         *
+         * @param acceptEncoding value of the `Accept-Encoding` header of the request
+         * @param cacheControl   `Cache-Control` of the response
+         * @return response which writes the bytes directly
+         */
+        public ResponseEntity<byte[]> toResponse(String acceptEncoding, CacheControl cacheControl) {
+            var response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (nextCursor != null)
+                response.header(MoviesController.NEXT_CURSOR_HEADER, nextCursor);
+            if (totalCount != null)
+                response.header(MoviesController.TOTAL_COUNT_HEADER, totalCount.toString());
+            if (gzip != null && acceptsGzip(acceptEncoding))
+                return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(gzip);
+            return response.body(json);
+        }
+    }
+}
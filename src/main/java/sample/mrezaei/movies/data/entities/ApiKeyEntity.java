@@ -17,4 +17,10 @@ public class ApiKeyEntity {
 
     @Column(name = "username")
     private String username;
+
+    @Column(name = "requestsPerSecond")
+    private Integer requestsPerSecond;
+
+    @Column(name = "burst")
+    private Integer burst;
 }
@@ -5,6 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+import sample.mrezaei.movies.data.listeners.MovieChangeListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -12,6 +17,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Entity
 @Table(name = "movies")
+@EntityListeners(MovieChangeListener.class)
 public class MovieEntity{
         @Id
         @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,7 +26,7 @@ public class MovieEntity{
         @Column(name = "title")
         private String title;
         @Column(name = "release_date")
-        private String releaseDate;
+        private LocalDate releaseDate;
         @Column(name = "poster_url")
         private String posterUrl;
         @Column(name = "overview")
@@ -37,4 +43,10 @@ public class MovieEntity{
         private Double ratingScore;
         @Column(name = "rating_count")
         private Integer ratingCount;
+        @Version
+        @Column(name = "version")
+        private long version;
+        @UpdateTimestamp
+        @Column(name = "updated_at")
+        private Instant updatedAt;
 }
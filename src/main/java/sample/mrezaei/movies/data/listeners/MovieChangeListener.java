@@ -0,0 +1,31 @@
+package sample.mrezaei.movies.data.listeners;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+
+/**
+ * This class is the JPA entity listener of movies.
+ * It publishes a `MovieChangedEvent` for every change, so in-memory structures can follow the database.
+ */
+@Component
+@AllArgsConstructor
+public class MovieChangeListener {
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(MovieEntity movieEntity) {
+        eventPublisher.publishEvent(new MovieChangedEvent(movieEntity, false));
+    }
+
+    @PostRemove
+    public void onRemoved(MovieEntity movieEntity) {
+        eventPublisher.publishEvent(new MovieChangedEvent(movieEntity, true));
+    }
+}
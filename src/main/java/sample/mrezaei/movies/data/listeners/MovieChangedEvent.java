@@ -0,0 +1,15 @@
+package sample.mrezaei.movies.data.listeners;
+
+import sample.mrezaei.movies.data.entities.MovieEntity;
+
+/**
+ * This event is published whenever a movie is inserted, updated or removed.
+ *
+ * @param movie   changed movie
+ * @param removed is the movie removed
+ */
+public record MovieChangedEvent(
+        MovieEntity movie,
+        boolean removed
+) {
+}
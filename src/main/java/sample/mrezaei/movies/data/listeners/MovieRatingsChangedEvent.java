@@ -0,0 +1,25 @@
+package sample.mrezaei.movies.data.listeners;
+
+import sample.mrezaei.movies.data.projections.MovieRating;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This event is published when the ratings of movies are changed and nothing else of them.
+ * Listeners update the ratings which they keep, instead of handling the movies as a `MovieChangedEvent`.
+ *
+ * @param movies new ratings of the changed movies
+ */
+public record MovieRatingsChangedEvent(
+        List<MovieRating> movies
+) {
+    /**
+     * @return the last update time of the changed movies, or null if it is not known
+     */
+    public Instant lastModified() {
+        return movies.stream().map(MovieRating::updatedAt).filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
+    }
+}
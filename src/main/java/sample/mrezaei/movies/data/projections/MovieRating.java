@@ -0,0 +1,26 @@
+package sample.mrezaei.movies.data.projections;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * This record is the projection of movies which listeners of a rating change need, it is a `MovieSummary` with its rating count and update time.
+ */
+public record MovieRating(
+        int id,
+        String title,
+        LocalDate releaseDate,
+        String posterUrl,
+        Double ratingScore,
+        Integer ratingCount,
+        Genre genre,
+        Language language,
+        Instant updatedAt
+) {
+    public MovieSummary toMovieSummary() {
+        return new MovieSummary(id, title, releaseDate, posterUrl, ratingScore, genre, language);
+    }
+}
@@ -0,0 +1,21 @@
+package sample.mrezaei.movies.data.projections;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+
+import java.time.LocalDate;
+
+/**
+ * This record is the projection of movies which list APIs need.
+ * Loading it selects only these columns instead of the whole row including `overview`.
+ */
+public record MovieSummary(
+        int id,
+        String title,
+        LocalDate releaseDate,
+        String posterUrl,
+        Double ratingScore,
+        Genre genre,
+        Language language
+) implements SortableMovie {
+}
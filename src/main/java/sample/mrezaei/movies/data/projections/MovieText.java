@@ -0,0 +1,32 @@
+package sample.mrezaei.movies.data.projections;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+
+import java.time.LocalDate;
+
+/**
+ * This record is the projection of movies which full-text search needs for indexing and filtering.
+ */
+public record MovieText(
+        int id,
+        String title,
+        String overview,
+        LocalDate releaseDate,
+        Double ratingScore,
+        Genre genre,
+        Language language
+) {
+    public static MovieText fromMovieEntity(MovieEntity movieEntity) {
+        return new MovieText(
+                movieEntity.getId(),
+                movieEntity.getTitle(),
+                movieEntity.getOverview(),
+                movieEntity.getReleaseDate(),
+                movieEntity.getRatingScore(),
+                movieEntity.getGenre(),
+                movieEntity.getLanguage()
+        );
+    }
+}
@@ -0,0 +1,22 @@
+package sample.mrezaei.movies.data.projections;
+
+import sample.mrezaei.movies.data.entities.MovieEntity;
+
+/**
+ * This record is the projection of movies which title autocomplete needs for matching and ranking.
+ */
+public record MovieTitle(
+        int id,
+        String title,
+        Double ratingScore,
+        Integer ratingCount
+) {
+    public static MovieTitle fromMovieEntity(MovieEntity movieEntity) {
+        return new MovieTitle(
+                movieEntity.getId(),
+                movieEntity.getTitle(),
+                movieEntity.getRatingScore(),
+                movieEntity.getRatingCount()
+        );
+    }
+}
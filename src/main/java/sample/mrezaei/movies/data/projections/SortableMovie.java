@@ -0,0 +1,22 @@
+package sample.mrezaei.movies.data.projections;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+
+import java.time.LocalDate;
+
+/**
+ * This interface includes the movie attributes which search results are filtered and sorted by,
+ * so the same in-memory filtering and sorting works for every projection of movies.
+ */
+public interface SortableMovie {
+    int id();
+
+    LocalDate releaseDate();
+
+    Double ratingScore();
+
+    Genre genre();
+
+    Language language();
+}
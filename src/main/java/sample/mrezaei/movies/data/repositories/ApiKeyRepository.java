@@ -3,5 +3,8 @@ package sample.mrezaei.movies.data.repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import sample.mrezaei.movies.data.entities.ApiKeyEntity;
 
+import java.util.List;
+
 public interface ApiKeyRepository extends JpaRepository<ApiKeyEntity, Integer> {
+    List<ApiKeyEntity> findByIdGreaterThan(Integer id);
 }
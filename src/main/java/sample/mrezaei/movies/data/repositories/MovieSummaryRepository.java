@@ -0,0 +1,35 @@
+package sample.mrezaei.movies.data.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+
+import java.util.Map;
+
+/**
+ * This repository fragment loads `MovieSummary` projections and aggregates by Specifications.
+ */
+public interface MovieSummaryRepository {
+
+    /**
+     * It selects only the summary columns of the movies which match the specification.
+     * No count query is executed, one extra row is loaded to know whether a next page exists.
+     *
+     * @param spec     filters, `null` means all movies
+     * @param pageable page and sort
+     * @return slice of movie summaries
+     */
+    Slice<MovieSummary> findSummaries(Specification<MovieEntity> spec, Pageable pageable);
+
+    /**
+     * It counts the movies which match the specification for each value of an attribute, by a `group by` query.
+     *
+     * @param spec      filters, `null` means all movies
+     * @param attribute grouped entity attribute
+     * @param type      type of the attribute
+     * @return number of movies by the attribute values, values without any movie are not included
+     */
+    <T> Map<T, Long> countGroupedBy(Specification<MovieEntity> spec, String attribute, Class<T> type);
+}
@@ -0,0 +1,76 @@
+package sample.mrezaei.movies.data.repositories;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class implements `MovieSummaryRepository` by a Criteria query which constructs the projection in the select clause.
+ */
+@AllArgsConstructor
+public class MovieSummaryRepositoryImpl implements MovieSummaryRepository {
+
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<MovieSummary> findSummaries(Specification<MovieEntity> spec, Pageable pageable) {
+        var cb = entityManager.getCriteriaBuilder();
+        var criteriaQuery = cb.createQuery(MovieSummary.class);
+        var root = criteriaQuery.from(MovieEntity.class);
+        criteriaQuery.select(cb.construct(MovieSummary.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("releaseDate"),
+                root.get("posterUrl"),
+                root.get("ratingScore"),
+                root.get("genre"),
+                root.get("language")
+        ));
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, criteriaQuery, cb);
+            if (predicate != null)
+                criteriaQuery.where(predicate);
+        }
+        if (pageable.getSort().isSorted())
+            criteriaQuery.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        var query = entityManager.createQuery(criteriaQuery);
+        if (pageable.isUnpaged())
+            return new SliceImpl<>(query.getResultList());
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        var movies = query.getResultList();
+        var hasNext = movies.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? movies.subList(0, pageable.getPageSize()) : movies, pageable, hasNext);
+    }
+
+    @Override
+    public <T> Map<T, Long> countGroupedBy(Specification<MovieEntity> spec, String attribute, Class<T> type) {
+        var cb = entityManager.getCriteriaBuilder();
+        var criteriaQuery = cb.createTupleQuery();
+        var root = criteriaQuery.from(MovieEntity.class);
+        var groupedAttribute = root.get(attribute).as(type);
+        criteriaQuery.multiselect(groupedAttribute, cb.count(root));
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, criteriaQuery, cb);
+            if (predicate != null)
+                criteriaQuery.where(predicate);
+        }
+        criteriaQuery.groupBy(groupedAttribute);
+
+        var counts = new HashMap<T, Long>();
+        for (var tuple : entityManager.createQuery(criteriaQuery).getResultList())
+            counts.put(tuple.get(0, type), tuple.get(1, Long.class));
+        return counts;
+    }
+}
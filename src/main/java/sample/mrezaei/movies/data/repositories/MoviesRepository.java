@@ -1,9 +1,77 @@
 package sample.mrezaei.movies.data.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.data.projections.MovieText;
+import sample.mrezaei.movies.data.projections.MovieTitle;
 
-public interface MoviesRepository extends JpaRepository<MovieEntity, Integer>, JpaSpecificationExecutor<MovieEntity> {
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+public interface MoviesRepository extends JpaRepository<MovieEntity, Integer>, JpaSpecificationExecutor<MovieEntity>, MovieSummaryRepository {
+    /**
+     * Number of rows which are fetched by each round trip of the export cursor
+     */
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * It returns the number of movies estimated by the planner statistics, which is -1 if the table is not analyzed yet.
+     */
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = cast('movies' as regclass)", nativeQuery = true)
+    long estimateCount();
+
+    /**
+     * It returns the last time a movie is changed, which is the version of the whole catalogue.
+     */
+    @Query("select max(m.updatedAt) from MovieEntity m")
+    Instant findLastModified();
+
+    /**
+     * It returns the titles and ratings of all movies, which the autocomplete index is built from.
+     */
+    @Query("select new sample.mrezaei.movies.data.projections.MovieTitle(m.id, m.title, m.ratingScore, m.ratingCount) from MovieEntity m")
+    List<MovieTitle> findTitles();
+
+    /**
+     * It returns the texts and filtered columns of all movies, which the full-text index is built from.
+     */
+    @Query("select new sample.mrezaei.movies.data.projections.MovieText(m.id, m.title, m.overview, m.releaseDate, m.ratingScore, m.genre, m.language) " +
+            "from MovieEntity m")
+    List<MovieText> findTexts();
+
+    /**
+     * It returns the ratings of the movies, which are published after their ratings are flushed.
+     */
+    @Query("select new sample.mrezaei.movies.data.projections.MovieRating(m.id, m.title, m.releaseDate, m.posterUrl, m.ratingScore, m.ratingCount, " +
+            "m.genre, m.language, m.updatedAt) " +
+            "from MovieEntity m where m.id in :ids")
+    List<MovieRating> findRatings(Collection<Integer> ids);
+
+    /**
+     * It streams all movies by a database cursor, it must be called in a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m from MovieEntity m order by m.id")
+    Stream<MovieEntity> streamAll();
+
+    /**
+     * It streams the movies which are changed at or after the time by a database cursor, it must be called in a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select m from MovieEntity m where m.updatedAt >= :updatedSince order by m.updatedAt, m.id")
+    Stream<MovieEntity> streamUpdatedSince(Instant updatedSince);
 }
@@ -2,34 +2,118 @@ package sample.mrezaei.movies.data.specifications;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
 import sample.mrezaei.movies.data.entities.MovieEntity;
 
-import java.util.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 
 /**
  * This class includes some methods to customize Movies Specification class to handle dynamic filtering
  */
 public class MovieSpecification {
 
+    private static final char LIKE_ESCAPE_CHARACTER = '\\';
+
+    /**
+     * It filters movies which their title contains the input, ignoring case.
+     * The predicate is `title ilike '%input%'` on the raw column, so the planner can use the `movies_title_trgm_idx` trigram index.
+     */
     public static Specification<MovieEntity> searchByTitleQuery(String title) {
         return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
-                cb.like(cb.lower(root.get("title")), "%" + title.toLowerCase() + "%");
+                ((HibernateCriteriaBuilder) cb).ilike(root.get("title"), "%" + escapeLikePattern(title) + "%", LIKE_ESCAPE_CHARACTER);
+    }
+
+    /**
+     * It filters movies which a word of their title starts with the prefix, ignoring case.
+     * A word starts at the beginning of the title or after a space.
+     */
+    public static Specification<MovieEntity> searchByTitleWordPrefix(String prefix) {
+        return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
+            var hcb = (HibernateCriteriaBuilder) cb;
+            var pattern = escapeLikePattern(prefix) + "%";
+            return hcb.or(hcb.ilike(root.get("title"), pattern, LIKE_ESCAPE_CHARACTER),
+                    hcb.ilike(root.get("title"), "% " + pattern, LIKE_ESCAPE_CHARACTER));
+        };
     }
 
-    public static Specification<MovieEntity> filterByReleaseDateFrom(Date releaseDateFrom) {
+    /**
+     * Release date filters compare the raw `release_date` column, so they are served by range scans on `movies_release_date_rating_score_idx`.
+     */
+    public static Specification<MovieEntity> filterByReleaseDateFrom(LocalDate releaseDateFrom) {
         return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
-                releaseDateFrom == null ? null : cb.greaterThanOrEqualTo(root.get("releaseDate").as(Date.class), releaseDateFrom);
+                releaseDateFrom == null ? null : cb.greaterThanOrEqualTo(root.get("releaseDate"), releaseDateFrom);
     }
 
-    public static Specification<MovieEntity> filterByReleaseDateTo(Date releaseDateTo) {
+    public static Specification<MovieEntity> filterByReleaseDateTo(LocalDate releaseDateTo) {
         return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
-                releaseDateTo == null ? null : cb.lessThanOrEqualTo(root.get("releaseDate").as(Date.class), releaseDateTo);
+                releaseDateTo == null ? null : cb.lessThanOrEqualTo(root.get("releaseDate"), releaseDateTo);
     }
 
     public static Specification<MovieEntity> filterByMinimumRating(Double minRating) {
         return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
                 minRating == null ? null : cb.greaterThanOrEqualTo(root.get("ratingScore"), minRating);
     }
-}
\ No newline at end of file
+
+    /**
+     * Genre and language filters match any of the given values.
+     */
+    public static Specification<MovieEntity> filterByGenres(Collection<Genre> genres) {
+        return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
+                genres == null || genres.isEmpty() ? null : root.get("genre").in(genres);
+    }
+
+    public static Specification<MovieEntity> filterByLanguages(Collection<Language> languages) {
+        return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
+                languages == null || languages.isEmpty() ? null : root.get("language").in(languages);
+    }
+
+    public static Specification<MovieEntity> filterByIds(Collection<Integer> ids) {
+        return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) ->
+                root.get("id").in(ids);
+    }
+
+    /**
+     * It filters the movies which come after the given row in `(sortColumn, id)` order, which is the keyset pagination predicate.
+     * The extra bound on `sortColumn` alone lets Postgres start an index range scan at the cursor, instead of walking over the previous rows.
+     *
+     * @param sortColumn sorted entity attribute
+     * @param direction  sort direction of both `sortColumn` and `id`
+     * @param value      value of the sorted attribute of the last row
+     * @param id         id of the last row
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static Specification<MovieEntity> filterAfterKeyset(String sortColumn, Sort.Direction direction, Comparable value, int id) {
+        return (Root<MovieEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
+            Expression<Integer> idColumn = root.get("id");
+            Expression<Comparable> column = root.get(sortColumn);
+            if (direction == Sort.Direction.DESC) {
+                if (sortColumn.equals("id"))
+                    return cb.lessThan(idColumn, id);
+                return cb.and(cb.lessThanOrEqualTo(column, value), cb.or(cb.lessThan(column, value), cb.lessThan(idColumn, id)));
+            }
+            if (sortColumn.equals("id"))
+                return cb.greaterThan(idColumn, id);
+            return cb.and(cb.greaterThanOrEqualTo(column, value), cb.or(cb.greaterThan(column, value), cb.greaterThan(idColumn, id)));
+        };
+    }
+
+    /**
+     * It escapes the `like` wildcards of user input, so they are matched as normal characters.
+     */
+    private static String escapeLikePattern(String text) {
+        var escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE_CHARACTER)
+                escaped.append(LIKE_ESCAPE_CHARACTER);
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
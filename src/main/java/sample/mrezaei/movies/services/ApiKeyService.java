@@ -1,33 +1,140 @@
 package sample.mrezaei.movies.services;
 
 import jakarta.annotation.PostConstruct;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import sample.mrezaei.movies.configurations.MoviesProperties;
 import sample.mrezaei.movies.data.entities.ApiKeyEntity;
 import sample.mrezaei.movies.data.repositories.ApiKeyRepository;
+import sample.mrezaei.movies.services.model.ApiKeyQuota;
 
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This service includes functions to validate api keys.
  * This class caches the API keys in order to increase the response speed.
+ * The keys are kept as SHA-256 digests in an immutable hash map, which is replaced as a whole when keys are reloaded,
+ * so validation is a lock-free lookup and reloading never blocks requests.
  */
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class ApiKeyService {
-    private ApiKeyRepository apiKeyRepository;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
 
-    private List<String> apiKeys;
+    private final ApiKeyRepository apiKeyRepository;
+
+    private final MoviesProperties moviesProperties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile KeySet keySet = new KeySet(Map.of(), 0);
 
     @PostConstruct
     public void initCache() {
-        apiKeys = apiKeyRepository.findAll().
-                stream()
-                .map(ApiKeyEntity::getApiKey)
-                .toList();
+        reload();
+    }
+
+    /**
+     * It loads all keys again, so removed keys are not accepted anymore.
+     */
+    @Scheduled(fixedDelayString = "${movies.api-keys.reload-interval:PT30M}", initialDelayString = "${movies.api-keys.reload-interval:PT30M}")
+    public void reload() {
+        writeLock.lock();
+        try {
+            var apiKeys = apiKeyRepository.findAll();
+            keySet = new KeySet(Map.copyOf(toQuotas(apiKeys)), getMaxId(apiKeys, 0));
+        } finally {
+            writeLock.unlock();
+        }
     }
 
+    /**
+     * It loads only the keys which are added after the last load, so new keys are accepted without a restart.
+     */
+    @Scheduled(fixedDelayString = "${movies.api-keys.refresh-interval:PT30S}", initialDelayString = "${movies.api-keys.refresh-interval:PT30S}")
+    public void refresh() {
+        writeLock.lock();
+        try {
+            var currentKeySet = keySet;
+            var newApiKeys = apiKeyRepository.findByIdGreaterThan(currentKeySet.maxId());
+            if (newApiKeys.isEmpty())
+                return;
+            var quotas = new HashMap<>(currentKeySet.quotas());
+            quotas.putAll(toQuotas(newApiKeys));
+            keySet = new KeySet(Map.copyOf(quotas), getMaxId(newApiKeys, currentKeySet.maxId()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The digest of the key is looked up instead of the key, so the time of the lookup does not
+     * depend on how many leading characters of a valid key are guessed.
+     *
+     * @param apiKey api key of the request
+     * @return true if the key is valid
+     */
     public boolean isValidApiKey(String apiKey) {
-        return apiKeys.contains(apiKey);
+        return findQuota(apiKey) != null;
+    }
+
+    /**
+     * It finds the rate limit quota of a valid api key in the same way as `isValidApiKey`.
+     *
+     * @param apiKey api key of the request
+     * @return quota of the key, or null if the key is not valid
+     */
+    public ApiKeyQuota findQuota(String apiKey) {
+        if (apiKey == null || apiKey.isEmpty())
+            return null;
+        return keySet.quotas().get(digest(apiKey));
+    }
+
+    private Map<ByteBuffer, ApiKeyQuota> toQuotas(Collection<ApiKeyEntity> apiKeys) {
+        var rateLimit = moviesProperties.getRateLimit();
+        var quotas = new HashMap<ByteBuffer, ApiKeyQuota>(apiKeys.size() * 2);
+        for (var apiKey : apiKeys) {
+            var quota = new ApiKeyQuota(
+                    apiKey.getId(),
+                    apiKey.getRequestsPerSecond() == null ? rateLimit.getDefaultRequestsPerSecond() : apiKey.getRequestsPerSecond(),
+                    apiKey.getBurst() == null ? rateLimit.getDefaultBurst() : apiKey.getBurst()
+            );
+            quotas.put(digest(apiKey.getApiKey()), quota);
+        }
+        return quotas;
+    }
+
+    private static int getMaxId(Collection<ApiKeyEntity> apiKeys, int defaultValue) {
+        return apiKeys.stream()
+                .mapToInt(ApiKeyEntity::getId)
+                .max()
+                .orElse(defaultValue);
+    }
+
+    private static ByteBuffer digest(String apiKey) {
+        try {
+            var messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return ByteBuffer.wrap(messageDigest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param quotas quotas of all valid keys by the digest of keys
+     * @param maxId  the largest id of loaded keys, newer keys have larger ids
+     */
+    private record KeySet(
+            Map<ByteBuffer, ApiKeyQuota> quotas,
+            int maxId
+    ) {
     }
 }
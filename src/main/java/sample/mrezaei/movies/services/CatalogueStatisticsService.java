@@ -0,0 +1,72 @@
+package sample.mrezaei.movies.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This service keeps an approximate number of movies for the APIs which return a total count.
+ * The number is refreshed in background from the planner statistics, so requests never run a `count(*)`.
+ * It also keeps the last modification time of the catalogue, which is the version of list responses.
+ * Changes of this instance update it immediately and changes of other instances are seen on the next refresh.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogueStatisticsService {
+    private final MoviesRepository moviesRepository;
+
+    private volatile Long estimatedMovieCount;
+
+    private final AtomicReference<Instant> lastModified = new AtomicReference<>();
+
+    @Scheduled(fixedDelayString = "${movies.statistics.refresh-interval:PT5M}")
+    public void refresh() {
+        var estimate = moviesRepository.estimateCount();
+        // a table which is never analyzed has no statistics, it is counted once here instead
+        estimatedMovieCount = estimate >= 0 ? estimate : moviesRepository.count();
+    }
+
+    @Scheduled(fixedDelayString = "${movies.statistics.last-modified-refresh-interval:PT10S}")
+    public void refreshLastModified() {
+        updateLastModified(moviesRepository.findLastModified());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        var updatedAt = event.movie().getUpdatedAt();
+        updateLastModified(event.removed() || updatedAt == null ? Instant.now() : updatedAt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        var lastModified = event.lastModified();
+        updateLastModified(lastModified == null ? Instant.now() : lastModified);
+    }
+
+    /**
+     * @return approximate number of movies, or null if it is not calculated yet
+     */
+    public Long getEstimatedMovieCount() {
+        return estimatedMovieCount;
+    }
+
+    /**
+     * @return the last time a movie is changed, or null if it is not loaded yet
+     */
+    public Instant getLastModified() {
+        return lastModified.get();
+    }
+
+    // it never goes back, so a refresh which runs before a local change is committed does not hide the change
+    private void updateLastModified(Instant modified) {
+        if (modified != null)
+            lastModified.accumulateAndGet(modified, (current, updated) -> current == null || updated.isAfter(current) ? updated : current);
+    }
+}
@@ -0,0 +1,86 @@
+package sample.mrezaei.movies.services;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class counts the events of ids approximately in a fixed memory, whatever the number of distinct ids is.
+ * It is a ring of count-min sketches, one per time slot. Events are counted in the current slot,
+ * and the counts of older slots are weighted down exponentially by their age, until the oldest slot is cleared and reused.
+ * Counting is a few atomic increments without any lock, and an estimate is never less than the real decayed count.
+ */
+class DecayedCountMinSketch {
+    static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x2C1B3C6D, 0x297A2D39, 0x1B873593, 0x7FEB352D};
+
+    private final AtomicIntegerArray[] slots;
+    private final double[] weights;
+    private final int mask;
+
+    private volatile int current;
+
+    /**
+     * @param slotCount number of time slots
+     * @param width     number of counters of every row, it is rounded up to a power of two
+     * @param decay     weight of the counts of a slot compared to the next slot, between 0 and 1
+     */
+    DecayedCountMinSketch(int slotCount, int width, double decay) {
+        var roundedWidth = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.mask = roundedWidth - 1;
+        this.slots = new AtomicIntegerArray[slotCount];
+        for (int i = 0; i < slotCount; i++)
+            slots[i] = new AtomicIntegerArray(DEPTH * roundedWidth);
+        this.weights = new double[slotCount];
+        for (int age = 0; age < slotCount; age++)
+            weights[age] = Math.pow(decay, age);
+    }
+
+    void increment(int id) {
+        var slot = slots[current];
+        for (int row = 0; row < DEPTH; row++)
+            slot.getAndIncrement(index(id, row));
+    }
+
+    /**
+     * @return decayed number of events of the id, or more if other ids share its counters
+     */
+    double estimate(int id) {
+        var head = current;
+        double total = 0;
+        for (int age = 0; age < slots.length; age++) {
+            var slot = slots[(head - age + slots.length) % slots.length];
+            int count = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH && count > 0; row++)
+                count = Math.min(count, slot.get(index(id, row)));
+            total += weights[age] * count;
+        }
+        return total;
+    }
+
+    /**
+     * It starts a new time slot in place of the oldest one.
+     * The oldest slot is cleared before it becomes current, so no increment is lost by clearing.
+     */
+    void rotate() {
+        var next = (current + 1) % slots.length;
+        var slot = slots[next];
+        for (int i = 0; i < slot.length(); i++)
+            slot.set(i, 0);
+        current = next;
+    }
+
+    int width() {
+        return mask + 1;
+    }
+
+    private int index(int id, int row) {
+        // the finalizer of murmur3 with a different seed for every row
+        int hash = id ^ SEEDS[row];
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return row * (mask + 1) + (hash & mask);
+    }
+}
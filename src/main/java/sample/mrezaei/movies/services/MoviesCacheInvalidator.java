@@ -0,0 +1,49 @@
+package sample.mrezaei.movies.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+
+import static sample.mrezaei.movies.configurations.CacheConfiguration.MOVIE_DETAILS_CACHE;
+import static sample.mrezaei.movies.configurations.CacheConfiguration.POPULAR_MOVIES_CACHE;
+
+/**
+ * This class removes cached responses which are affected by movie changes.
+ */
+@Component
+@RequiredArgsConstructor
+public class MoviesCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = MOVIE_DETAILS_CACHE, key = "#event.movie().id"),
+            @CacheEvict(cacheNames = POPULAR_MOVIES_CACHE, allEntries = true)
+    })
+    public void onMovieChanged(MovieChangedEvent event) {
+    }
+
+    /**
+     * It removes the details of the rated movies. Popular pages are ordered by the rating, so all of them are removed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @CacheEvict(cacheNames = POPULAR_MOVIES_CACHE, allEntries = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        var movieDetailsCache = cacheManager.getCache(MOVIE_DETAILS_CACHE);
+        if (movieDetailsCache != null)
+            for (var movie : event.movies())
+                movieDetailsCache.evict(movie.id());
+    }
+
+    /**
+     * It clears all response caches, for changes which are not done by JPA.
+     */
+    @CacheEvict(cacheNames = {MOVIE_DETAILS_CACHE, POPULAR_MOVIES_CACHE}, allEntries = true)
+    public void evictAll() {
+    }
+}
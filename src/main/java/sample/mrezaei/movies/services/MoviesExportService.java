@@ -0,0 +1,61 @@
+package sample.mrezaei.movies.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.services.model.MovieExportResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * This service exports the catalogue as newline delimited JSON.
+ * Movies are read by a database cursor and written one by one, so the memory does not grow with the number of movies.
+ */
+@Service
+@RequiredArgsConstructor
+public class MoviesExportService {
+    private final MoviesRepository moviesRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * This function writes one JSON line per movie.
+     * All movies are read by a single query, so the export is a consistent snapshot of the catalogue.
+     * The output stream blocks while the client is slow, and the cursor is not read further until it is written.
+     *
+     * @param updatedSince only movies which are changed at or after this time are exported, ordered by their change time.
+     *                     If it is null, all movies are exported by id order
+     * @param output       stream of the response
+     * @return number of exported movies
+     */
+    @Transactional(readOnly = true)
+    public long export(Instant updatedSince, OutputStream output) throws IOException {
+        var movies = updatedSince == null
+                ? moviesRepository.streamAll()
+                : moviesRepository.streamUpdatedSince(updatedSince);
+        // the generator buffers the lines and the servlet writes its buffer when it is full, so a line is not flushed alone
+        var writer = objectMapper.writerFor(MovieExportResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (movies; var generator = objectMapper.createGenerator(output)) {
+            // the default separator of root values is a space, lines are separated only by their new line
+            generator.setRootValueSeparator(null);
+            for (var iterator = movies.iterator(); iterator.hasNext(); count++) {
+                var movie = iterator.next();
+                writer.writeValue(generator, MovieExportResponse.fromMovieEntity(movie));
+                generator.writeRaw('\n');
+                // exported movies are not kept by the persistence context
+                entityManager.detach(movie);
+            }
+        }
+        return count;
+    }
+}
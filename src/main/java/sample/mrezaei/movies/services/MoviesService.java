@@ -1,24 +1,57 @@
 package sample.mrezaei.movies.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
 import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.projections.SortableMovie;
 import sample.mrezaei.movies.data.repositories.MoviesRepository;
 import sample.mrezaei.movies.data.specifications.MovieSpecification;
 import sample.mrezaei.movies.exceptions.InputParamException;
 import sample.mrezaei.movies.exceptions.MovieNotFoundException;
 import sample.mrezaei.movies.services.model.MovieDetailsResponse;
 import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MovieSuggestionResponse;
+import sample.mrezaei.movies.services.model.MoviesBatchResponse;
+import sample.mrezaei.movies.services.model.MoviesPage;
+import sample.mrezaei.movies.services.model.PageCursor;
+import sample.mrezaei.movies.services.model.ResourceVersion;
+import sample.mrezaei.movies.services.model.SearchFacetsResponse;
 import sample.mrezaei.movies.services.model.SearchMoviesRequest;
+import sample.mrezaei.movies.services.search.FullTextIndex;
+import sample.mrezaei.movies.services.search.IndexedMovie;
+import sample.mrezaei.movies.services.search.SearchFilters;
+import sample.mrezaei.movies.services.search.SearchResultCache;
+import sample.mrezaei.movies.services.search.TitleAutocompleteIndex;
+import sample.mrezaei.movies.services.search.TitleSearchIndex;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static sample.mrezaei.movies.configurations.CacheConfiguration.MOVIE_DETAILS_CACHE;
+import static sample.mrezaei.movies.configurations.CacheConfiguration.POPULAR_MOVIES_CACHE;
 
 /**
  * This Service includes all methods to provide data for Rest Controller
@@ -28,16 +61,45 @@ import java.util.List;
 public class MoviesService {
     private MoviesRepository moviesRepository;
 
-    private static final SimpleDateFormat FULL_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-    private static final SimpleDateFormat MONTH_DATE_FORMAT = new SimpleDateFormat("yyyy-MM");
-    private static final SimpleDateFormat YEAR_DATE_FORMAT = new SimpleDateFormat("yyyy");
+    private TitleSearchIndex titleSearchIndex;
+
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    private FullTextIndex fullTextIndex;
+
+    private CatalogueStatisticsService catalogueStatisticsService;
+
+    private SearchResultCache searchResultCache;
+
+    private CacheManager cacheManager;
+
+    private MoviesProperties moviesProperties;
+
+    private static final int SEARCH_PAGE_SIZE = 10;
+    private static final int POPULAR_PAGE_SIZE = 50;
+    private static final String POPULAR_SORT_COLUMN = "ratingScore";
+    private static final String RELEVANCE_SORT_COLUMN = "relevance";
+
+    private static final Pattern FULL_DATE_PATTERN = Pattern.compile("^[0-9]{4}-[0-9]{2}-[0-9]{2}$");
+    private static final Pattern MONTH_DATE_PATTERN = Pattern.compile("^[0-9]{4}-[0-9]{2}$");
+    private static final Pattern YEAR_DATE_PATTERN = Pattern.compile("^[0-9]{4}$");
+    private static final DateTimeFormatter MONTH_DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter YEAR_DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu").withResolverStyle(ResolverStyle.STRICT);
+    private static final int RELEASE_DATE_CACHE_SIZE = 1_000;
+    // evictions are done by the caller thread, they are cheaper than handing them over to the common pool for every miss
+    private static final Cache<String, ReleaseDateRange> RELEASE_DATE_RANGES = Caffeine.newBuilder()
+            .maximumSize(RELEASE_DATE_CACHE_SIZE)
+            .executor(Runnable::run)
+            .build();
 
     /**
      * this function returns a detailed information object of a movies by its id.
+     * The responses are cached, so frequently requested movies do not hit the database.
      *
      * @param id movie id
      * @return detail information object
      */
+    @Cacheable(cacheNames = MOVIE_DETAILS_CACHE, key = "#id")
     public MovieDetailsResponse getMovieById(Integer id) {
         var movieEntity = moviesRepository.findById(id)
                 .orElseThrow(MovieNotFoundException::new);
@@ -45,57 +107,420 @@ public class MoviesService {
     }
 
     /**
-     * It returns a list of most popular movies by pagination
+     * This function returns the detailed information of many movies in one call.
+     * Movies which are in the details cache are taken from it, and the rest are loaded by a single query and cached.
      *
-     * @param page page number
-     * @return list of movies
+     * @param ids movie ids, repeated ids are returned once
+     * @return found movies in the order of the ids, and the ids which are not found
      */
-    public List<MovieListResponse> getPopularMovies(Integer page) {
-        var pageRequest = PageRequest.of(page == null ? 0 : page - 1, 50)
-                .withSort(Sort.by("ratingScore").descending());
-        var movies = moviesRepository.findAll(pageRequest);
-        return movies.stream()
-                .map(MovieListResponse::fromMovieEntity)
-                .toList();
+    public MoviesBatchResponse getMoviesByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty())
+            throw new InputParamException("ids are empty");
+        var requestedIds = new LinkedHashSet<>(ids);
+        var maxSize = moviesProperties.getBatch().getMaxSize();
+        if (requestedIds.size() > maxSize)
+            throw new InputParamException("at most " + maxSize + " movies can be requested together");
+        if (requestedIds.contains(null) || requestedIds.stream().anyMatch(id -> id <= 0))
+            throw new InputParamException("ids must be positive");
+
+        var detailsCache = cacheManager.getCache(MOVIE_DETAILS_CACHE);
+        var movies = new HashMap<Integer, MovieDetailsResponse>();
+        var notCachedIds = new ArrayList<Integer>();
+        for (var id : requestedIds) {
+            var cachedMovie = detailsCache == null ? null : detailsCache.get(id, MovieDetailsResponse.class);
+            if (cachedMovie != null)
+                movies.put(id, cachedMovie);
+            else
+                notCachedIds.add(id);
+        }
+        if (!notCachedIds.isEmpty()) {
+            for (var movieEntity : moviesRepository.findAllById(notCachedIds)) {
+                var movie = MovieDetailsResponse.fromMovieEntity(movieEntity);
+                movies.put(movie.id(), movie);
+                if (detailsCache != null)
+                    detailsCache.put(movie.id(), movie);
+            }
+        }
+
+        var foundMovies = new ArrayList<MovieDetailsResponse>(movies.size());
+        var missingIds = new ArrayList<Integer>();
+        for (var id : requestedIds) {
+            var movie = movies.get(id);
+            if (movie != null)
+                foundMovies.add(movie);
+            else
+                missingIds.add(id);
+        }
+        return new MoviesBatchResponse(foundMovies, missingIds);
+    }
+
+    /**
+     * It returns a list of most popular movies by pagination.
+     * Pages can be loaded by page number or by the cursor of the previous page. Cursor pages cost the same at any depth.
+     * The pages are cached, the frequency based eviction of the cache keeps the first pages and drops rarely requested deep pages.
+     * The cached pages belong to a version of the catalogue, so a page is never older than its `getPopularMoviesVersion`.
+     *
+     * @param page         page number
+     * @param cursor       cursor of the previous page
+     * @param includeTotal should the approximate number of all movies be returned
+     * @return page of movies
+     */
+    @Cacheable(cacheNames = POPULAR_MOVIES_CACHE, key = "{#page, #cursor, #includeTotal, @catalogueStatisticsService.lastModified}")
+    public MoviesPage getPopularMovies(Integer page, String cursor, boolean includeTotal) {
+        Specification<MovieEntity> spec = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            if (page != null)
+                throw new InputParamException("page and cursor can not be used together");
+            spec = getKeysetSpecification(cursor, POPULAR_SORT_COLUMN, Sort.Direction.DESC);
+        }
+        var pageRequest = PageRequest.of(page == null ? 0 : page - 1, POPULAR_PAGE_SIZE)
+                .withSort(Sort.by(Sort.Direction.DESC, POPULAR_SORT_COLUMN, "id"));
+        var movies = moviesRepository.findSummaries(spec, pageRequest);
+        var totalCount = includeTotal ? catalogueStatisticsService.getEstimatedMovieCount() : null;
+        return toMoviesPage(movies, POPULAR_SORT_COLUMN, Sort.Direction.DESC, totalCount);
+    }
+
+    /**
+     * It returns the version of popular movies pages without loading them, so conditional requests are answered without database work.
+     * The version is the last modification of the catalogue, and the estimated total count when it is included.
+     *
+     * @param includeTotal is the approximate number of all movies returned
+     * @return version of the pages, or null if it is not known yet
+     */
+    public ResourceVersion getPopularMoviesVersion(boolean includeTotal) {
+        var lastModified = catalogueStatisticsService.getLastModified();
+        if (lastModified == null)
+            return null;
+        var eTag = "\"" + lastModified.toEpochMilli()
+                + (includeTotal ? "-" + catalogueStatisticsService.getEstimatedMovieCount() : "") + "\"";
+        return new ResourceVersion(eTag, lastModified);
     }
 
     /**
      * This function searches the movies according to input.
      * The only required parameter is `query`. The others are optional and only if the user provides a value will affect.
+     * Small result sets are loaded completely and cached, so their next pages and refined requests, e.g. a longer query or a narrower filter,
+     * are answered in memory. The total count is available whenever all results are known without a count query.
      *
      * @param searchMoviesRequest api input params model
-     * @return final list of movies
+     * @return page of movies
      */
-    public List<MovieListResponse> searchMovies(SearchMoviesRequest searchMoviesRequest) {
-        Specification<MovieEntity> spec = getSearchSpecification(searchMoviesRequest);
+    public MoviesPage searchMovies(SearchMoviesRequest searchMoviesRequest) {
+        var filters = getSearchFilters(searchMoviesRequest);
+        var sortColumn = getSortColumn(searchMoviesRequest);
+        var direction = getSortDirection(searchMoviesRequest);
+        var cursor = searchMoviesRequest.cursor() == null || searchMoviesRequest.cursor().isEmpty()
+                ? null : getValidCursor(searchMoviesRequest.cursor(), sortColumn, direction);
+
+        if (sortColumn.equals(RELEVANCE_SORT_COLUMN))
+            return searchMoviesByRelevance(filters, cursor, searchMoviesRequest.includeTotal());
+
+        var cachedMovies = searchResultCache.findSuperset(filters);
+        if (cachedMovies != null) {
+            var movies = cachedMovies.stream().filter(filters::matches).toList();
+            return getPageInMemory(movies, sortColumn, direction, cursor, searchMoviesRequest.includeTotal());
+        }
+        if (titleSearchIndex.isAvailable())
+            return searchMoviesInIndex(searchMoviesRequest, filters, sortColumn, direction, cursor);
 
+        Specification<MovieEntity> spec = getSearchSpecification(searchMoviesRequest);
         var sort = getSort(searchMoviesRequest);
-        var pageRequest = PageRequest.of(0, 10, sort);
-        return moviesRepository.findAll(spec, pageRequest).stream()
-                .map(MovieListResponse::fromMovieEntity)
+        if (cursor != null) {
+            spec = spec.and(MovieSpecification.filterAfterKeyset(sortColumn, direction, cursor.value(), cursor.id()));
+            var movies = moviesRepository.findSummaries(spec, PageRequest.of(0, SEARCH_PAGE_SIZE, sort));
+            return toMoviesPage(movies, sortColumn, direction, null);
+        }
+
+        // a result set which was too large to be cached is not expected to fit now, so only its first page is fetched
+        if (searchResultCache.isOversized(filters)) {
+            var movies = moviesRepository.findSummaries(spec, PageRequest.of(0, SEARCH_PAGE_SIZE, sort));
+            return toMoviesPage(movies, sortColumn, direction, null);
+        }
+        // otherwise the first page is fetched as large as a cacheable result, so small result sets are loaded by a single query
+        var movies = moviesRepository.findSummaries(spec, PageRequest.of(0, searchResultCache.getMaxResultSize(), sort));
+        if (!movies.hasNext()) {
+            searchResultCache.put(filters, movies.getContent());
+            return getPageInMemory(movies.getContent(), sortColumn, direction, null, searchMoviesRequest.includeTotal());
+        }
+        searchResultCache.putOversized(filters);
+        var content = movies.getContent();
+        var page = content.subList(0, Math.min(SEARCH_PAGE_SIZE, content.size()));
+        return toMoviesPage(new SliceImpl<>(page, PageRequest.of(0, SEARCH_PAGE_SIZE), content.size() > SEARCH_PAGE_SIZE), sortColumn, direction, null);
+    }
+
+    /**
+     * This function counts the movies of every genre and language which match the search.
+     * The counts are taken from the bitmaps of the in-memory index, or from `group by` queries when the index is disabled.
+     * The counts of a facet apply all filters except the filter of that facet.
+     *
+     * @param searchMoviesRequest api input params model, the query can be empty to count the whole catalogue
+     * @return facet counts
+     */
+    public SearchFacetsResponse getSearchFacets(SearchMoviesRequest searchMoviesRequest) {
+        var filters = getSearchFilters(searchMoviesRequest);
+        if (titleSearchIndex.isAvailable()) {
+            var facets = titleSearchIndex.facets(filters);
+            if (facets != null)
+                return facets;
+        }
+
+        var spec = getRangeSpecification(searchMoviesRequest);
+        var genres = new EnumMap<Genre, Long>(Genre.class);
+        moviesRepository.countGroupedBy(spec.and(MovieSpecification.filterByLanguages(filters.languages())), "genre", Genre.class)
+                .forEach((genre, count) -> genres.put(genre, count));
+        var languages = new EnumMap<Language, Long>(Language.class);
+        moviesRepository.countGroupedBy(spec.and(MovieSpecification.filterByGenres(filters.genres())), "language", Language.class)
+                .forEach((language, count) -> languages.put(language, count));
+        for (var genre : Genre.values())
+            genres.putIfAbsent(genre, 0L);
+        for (var language : Language.values())
+            languages.putIfAbsent(language, 0L);
+        var totalCount = genres.entrySet().stream()
+                .filter(entry -> filters.genres() == null || filters.genres().contains(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return new SearchFacetsResponse(totalCount, genres, languages);
+    }
+
+    /**
+     * This function returns the best rated movies which a word of their title starts with the prefix, for typeahead.
+     * It is answered by the in-memory prefix trie, or by a `like` query when the trie is disabled.
+     *
+     * @param prefix typed text
+     * @param limit  maximum number of movies, the autocomplete size if it is null
+     * @return movies ordered by rating score and rating count
+     */
+    public List<MovieSuggestionResponse> autocompleteTitles(String prefix, Integer limit) {
+        var maxLimit = moviesProperties.getSearch().getAutocompleteSize();
+        if (limit != null && limit > maxLimit)
+            throw new InputParamException("limit can not be more than " + maxLimit);
+        var size = limit == null ? maxLimit : limit;
+        if (titleAutocompleteIndex.isAvailable())
+            return titleAutocompleteIndex.suggest(prefix, size).stream()
+                    .map(MovieSuggestionResponse::fromMovieTitle)
+                    .toList();
+
+        var sort = Sort.by(Sort.Order.desc("ratingScore"), Sort.Order.desc("ratingCount"), Sort.Order.asc("id"));
+        return moviesRepository.findSummaries(MovieSpecification.searchByTitleWordPrefix(prefix.stripLeading()), PageRequest.of(0, size, sort))
+                .stream()
+                .map(MovieSuggestionResponse::fromMovieSummary)
+                .toList();
+    }
+
+    /**
+     * This function ranks the movies which have any word of the query in their title or overview, by the full-text index.
+     * Only the movies of the result page are loaded from the database.
+     *
+     * @param filters      search filters, the query is split to words
+     * @param cursor       decoded cursor of the previous page, or null for the first page
+     * @param includeTotal should the number of all results be returned
+     * @return page of movies
+     */
+    private MoviesPage searchMoviesByRelevance(SearchFilters filters, PageCursor cursor, boolean includeTotal) {
+        if (!fullTextIndex.isAvailable())
+            throw new InputParamException("relevance sort is not available");
+        // one extra movie is selected to know whether there is a next page
+        var hits = fullTextIndex.search(filters, SEARCH_PAGE_SIZE + 1,
+                cursor == null ? null : (Double) cursor.value(), cursor == null ? 0 : cursor.id());
+        var scoredMovies = hits.movies();
+        var hasNext = scoredMovies.size() > SEARCH_PAGE_SIZE;
+        if (hasNext)
+            scoredMovies = scoredMovies.subList(0, SEARCH_PAGE_SIZE);
+        var movies = loadSummaries(scoredMovies.stream().map(FullTextIndex.ScoredMovie::id).toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            var last = scoredMovies.get(scoredMovies.size() - 1);
+            nextCursor = new PageCursor(RELEVANCE_SORT_COLUMN, Sort.Direction.DESC, last.score(), last.id()).encode();
+        }
+        return new MoviesPage(movies.stream().map(MovieListResponse::fromMovieSummary).toList(), nextCursor,
+                includeTotal ? (long) hits.totalHits() : null);
+    }
+
+    /**
+     * This function does the search by the in-memory title index.
+     * Matching and filtering are done in memory, genres and languages are filtered by bitmaps. If the result is small enough to be cached, all its rows are loaded,
+     * otherwise the sorting is done in memory too and the database is only queried for the rows of the result page.
+     *
+     * @param searchMoviesRequest api input params model
+     * @return page of movies
+     */
+    private MoviesPage searchMoviesInIndex(SearchMoviesRequest searchMoviesRequest, SearchFilters filters,
+                                           String sortColumn, Sort.Direction direction, PageCursor cursor) {
+        var matchedMovies = titleSearchIndex.search(filters);
+        if (matchedMovies.size() <= searchResultCache.getMaxResultSize()) {
+            var movies = loadSummaries(matchedMovies.stream().map(IndexedMovie::id).toList());
+            searchResultCache.put(filters, movies);
+            return getPageInMemory(movies, sortColumn, direction, cursor, searchMoviesRequest.includeTotal());
+        }
+
+        var totalCount = searchMoviesRequest.includeTotal() ? (long) matchedMovies.size() : null;
+        // one extra movie is selected to know whether there is a next page
+        var pageIds = matchedMovies.stream()
+                .filter(movie -> cursor == null || compareToCursor(movie, cursor) > 0)
+                .sorted(getComparator(sortColumn, direction))
+                .limit(SEARCH_PAGE_SIZE + 1)
+                .map(IndexedMovie::id)
+                .toList();
+        var hasNext = pageIds.size() > SEARCH_PAGE_SIZE;
+        if (hasNext)
+            pageIds = pageIds.subList(0, SEARCH_PAGE_SIZE);
+        var pageMovies = loadSummaries(pageIds);
+        return toMoviesPage(new SliceImpl<>(pageMovies, PageRequest.of(0, SEARCH_PAGE_SIZE), hasNext), sortColumn, direction, totalCount);
+    }
+
+    /**
+     * It loads the movies by their ids in the order of ids.
+     */
+    private List<MovieSummary> loadSummaries(List<Integer> ids) {
+        if (ids.isEmpty())
+            return List.of();
+        var movies = moviesRepository.findSummaries(MovieSpecification.filterByIds(ids), Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(MovieSummary::id, Function.identity()));
+        return ids.stream()
+                .map(movies::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
+    /**
+     * This function sorts all results in memory and returns the page after the cursor.
+     *
+     * @param movies       all results
+     * @param cursor       decoded cursor of the previous page, or null for the first page
+     * @param includeTotal should the number of all results be returned
+     * @return page of movies
+     */
+    private static MoviesPage getPageInMemory(List<MovieSummary> movies, String sortColumn, Sort.Direction direction,
+                                              PageCursor cursor, boolean includeTotal) {
+        var totalCount = includeTotal ? (long) movies.size() : null;
+        // one extra movie is selected to know whether there is a next page
+        var page = movies.stream()
+                .filter(movie -> cursor == null || compareToCursor(movie, cursor) > 0)
+                .sorted(getComparator(sortColumn, direction))
+                .limit(SEARCH_PAGE_SIZE + 1)
+                .toList();
+        var hasNext = page.size() > SEARCH_PAGE_SIZE;
+        if (hasNext)
+            page = page.subList(0, SEARCH_PAGE_SIZE);
+        return toMoviesPage(new SliceImpl<>(page, PageRequest.of(0, SEARCH_PAGE_SIZE), hasNext), sortColumn, direction, totalCount);
+    }
+
+    /**
+     * This function returns the in-memory equivalent of `getSort`.
+     *
+     * @param sortColumn sorted attribute
+     * @param direction  sort direction
+     * @return comparator of movies
+     */
+    private static <T extends SortableMovie> Comparator<T> getComparator(String sortColumn, Sort.Direction direction) {
+        Comparator<T> comparator = (first, second) -> compareSortKeys(first, second.id(), getSortKey(second, sortColumn), sortColumn);
+        return direction == Sort.Direction.DESC ? comparator.reversed() : comparator;
+    }
+
+    /**
+     * It compares a movie with the last movie of previous page in the order of the cursor.
+     *
+     * @return positive if the movie comes after the cursor
+     */
+    private static int compareToCursor(SortableMovie movie, PageCursor cursor) {
+        var result = compareSortKeys(movie, cursor.id(), cursor.value(), cursor.sortColumn());
+        return cursor.direction() == Sort.Direction.DESC ? -result : result;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static int compareSortKeys(SortableMovie movie, int otherId, Comparable otherValue, String sortColumn) {
+        var result = getSortKey(movie, sortColumn).compareTo(otherValue);
+        return result != 0 ? result : Integer.compare(movie.id(), otherId);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparable getSortKey(SortableMovie movie, String sortColumn) {
+        return switch (sortColumn) {
+            case "ratingScore" -> movie.ratingScore();
+            case "releaseDate" -> movie.releaseDate();
+            default -> movie.id();
+        };
+    }
+
+    /**
+     * It builds the page result and the cursor of its next page, if the slice has a next page.
+     */
+    private static MoviesPage toMoviesPage(Slice<MovieSummary> movies, String sortColumn, Sort.Direction direction, Long totalCount) {
+        var content = movies.getContent();
+        var nextCursor = !movies.hasNext() || content.isEmpty() ? null
+                : PageCursor.after(content.get(content.size() - 1), sortColumn, direction).encode();
+        return new MoviesPage(content.stream().map(MovieListResponse::fromMovieSummary).toList(), nextCursor, totalCount);
+    }
+
+    /**
+     * This function decodes the cursor and checks that it is created for the same sort.
+     *
+     * @param cursor     encoded cursor
+     * @param sortColumn sort attribute of the request
+     * @param direction  sort direction of the request
+     * @return decoded cursor
+     */
+    private static PageCursor getValidCursor(String cursor, String sortColumn, Sort.Direction direction) {
+        var pageCursor = PageCursor.decode(cursor);
+        if (!pageCursor.sortColumn().equals(sortColumn) || pageCursor.direction() != direction)
+            throw new InputParamException("cursor does not match the sort parameters");
+        return pageCursor;
+    }
+
+    private static Specification<MovieEntity> getKeysetSpecification(String cursor, String sortColumn, Sort.Direction direction) {
+        var pageCursor = getValidCursor(cursor, sortColumn, direction);
+        return MovieSpecification.filterAfterKeyset(sortColumn, direction, pageCursor.value(), pageCursor.id());
+    }
+
     /**
      * This function returns the `Sort` object according to api inputs.
+     * Equal values are ordered by id, so the order is stable and pages can continue from a cursor.
      *
      * @param searchMoviesRequest api input params model
      * @return Sort object
      */
     private Sort getSort(SearchMoviesRequest searchMoviesRequest) {
-        var sortColumn = switch (searchMoviesRequest.sortBy()) {
+        var sortColumn = getSortColumn(searchMoviesRequest);
+        var direction = getSortDirection(searchMoviesRequest);
+        return sortColumn.equals("id") ? Sort.by(direction, sortColumn) : Sort.by(direction, sortColumn, "id");
+    }
+
+    private static String getSortColumn(SearchMoviesRequest searchMoviesRequest) {
+        return switch (searchMoviesRequest.sortBy()) {
             case "averageRating" -> "ratingScore";
             case "releaseDate" -> "releaseDate";
+            case "relevance" -> RELEVANCE_SORT_COLUMN;
             default -> "id";
         };
-        var sort = Sort.by(sortColumn);
-        if (searchMoviesRequest.sortDirection() != null) {
-            sort = switch (searchMoviesRequest.sortDirection()) {
-                case ASC -> sort.ascending();
-                case DESC -> sort.descending();
-            };
-        }
-        return sort;
+    }
+
+    private static Sort.Direction getSortDirection(SearchMoviesRequest searchMoviesRequest) {
+        // the most relevant movies always come first
+        if (getSortColumn(searchMoviesRequest).equals(RELEVANCE_SORT_COLUMN))
+            return Sort.Direction.DESC;
+        return searchMoviesRequest.sortDirection() == null ? Sort.Direction.ASC : searchMoviesRequest.sortDirection();
+    }
+
+    /**
+     * This function returns the normalized filters of the api inputs, which decide the result set regardless of sort and page.
+     *
+     * @param searchMoviesRequest api input params model
+     * @return search filters
+     */
+    private SearchFilters getSearchFilters(SearchMoviesRequest searchMoviesRequest) {
+        return new SearchFilters(
+                searchMoviesRequest.query() == null ? "" : IndexedMovie.normalize(searchMoviesRequest.query()),
+                getValidReleaseDate(searchMoviesRequest.releaseDateFrom(), true),
+                getValidReleaseDate(searchMoviesRequest.releaseDateTo(), false),
+                searchMoviesRequest.minRating(),
+                searchMoviesRequest.genres() == null || searchMoviesRequest.genres().isEmpty()
+                        ? null : Set.copyOf(searchMoviesRequest.genres()),
+                searchMoviesRequest.languages() == null || searchMoviesRequest.languages().isEmpty()
+                        ? null : Set.copyOf(searchMoviesRequest.languages()),
+                // fuzzy matching needs the in-memory index, the `like` query matches the query exactly
+                searchMoviesRequest.fuzzy() && titleSearchIndex.isAvailable()
+        );
     }
 
     /**
@@ -105,8 +530,19 @@ public class MoviesService {
      * @param searchMoviesRequest api input params model
      * @return specification inputs
      */
-    private Specification<MovieEntity> getSearchSpecification(SearchMoviesRequest searchMoviesRequest) {
-        Specification<MovieEntity> spec = Specification.where(MovieSpecification.searchByTitleQuery(searchMoviesRequest.query()));
+    Specification<MovieEntity> getSearchSpecification(SearchMoviesRequest searchMoviesRequest) {
+        return getRangeSpecification(searchMoviesRequest)
+                .and(MovieSpecification.filterByGenres(searchMoviesRequest.genres()))
+                .and(MovieSpecification.filterByLanguages(searchMoviesRequest.languages()));
+    }
+
+    /**
+     * It returns the specification of the query, release date and rating filters, without genre and language filters.
+     */
+    private Specification<MovieEntity> getRangeSpecification(SearchMoviesRequest searchMoviesRequest) {
+        Specification<MovieEntity> spec = Specification.where(null);
+        if (searchMoviesRequest.query() != null && !searchMoviesRequest.query().isEmpty())
+            spec = spec.and(MovieSpecification.searchByTitleQuery(searchMoviesRequest.query()));
         if (searchMoviesRequest.releaseDateFrom() != null && !searchMoviesRequest.releaseDateFrom().isEmpty())
             spec = spec.and(MovieSpecification.filterByReleaseDateFrom(getValidReleaseDate(searchMoviesRequest.releaseDateFrom(), true)));
         if (searchMoviesRequest.releaseDateTo() != null && !searchMoviesRequest.releaseDateTo().isEmpty())
@@ -117,34 +553,47 @@ public class MoviesService {
     }
 
     /**
-     * This function converts a date string to Date object.
+     * This function converts a date string to LocalDate object.
      * It accepts all `yyyy-MM-ddd` or `yyyy-MM` or `yyyy` formats.
      * It sets the month and day to first for starting date and last for ending date.
+     * The parsed ranges are cached, as requests use a small set of distinct dates.
      *
      * @param dateString input date string
      * @param start      is it from date or end date
      * @return validated date
      */
-    public Date getValidReleaseDate(String dateString, boolean start) {
+    public LocalDate getValidReleaseDate(String dateString, boolean start) {
         if (dateString == null || dateString.isEmpty())
             return null;
+        var range = RELEASE_DATE_RANGES.get(dateString, MoviesService::parseReleaseDateRange);
+        return start ? range.start() : range.end();
+    }
+
+    /**
+     * It parses a date string to the range of days which it covers.
+     * The java.time types are immutable, so it is safe to be called by concurrent requests.
+     *
+     * @param dateString input date string
+     * @return first and last day of the date
+     */
+    private static ReleaseDateRange parseReleaseDateRange(String dateString) {
         try {
-            Calendar calendar = Calendar.getInstance();
-            if (dateString.matches("^[0-9]{4}-[0-9]{2}-[0-9]{2}$")) {
-                calendar.setTime(FULL_DATE_FORMAT.parse(dateString));
-            } else if (dateString.matches("^[0-9]{4}-[0-9]{2}$")) {
-                calendar.setTime(MONTH_DATE_FORMAT.parse(dateString));
-                calendar.set(Calendar.DAY_OF_MONTH, start ? 1 : calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
-            } else if (dateString.matches("^[0-9]{4}$")) {
-                calendar.setTime(YEAR_DATE_FORMAT.parse(dateString));
-                calendar.set(Calendar.MONTH, start ? 1 : 12);
-                calendar.set(Calendar.DAY_OF_MONTH, start ? 1 : calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
-            } else {
-                throw new InputParamException("invalid date format");
+            if (FULL_DATE_PATTERN.matcher(dateString).matches()) {
+                var date = LocalDate.parse(dateString, DateTimeFormatter.ISO_LOCAL_DATE);
+                return new ReleaseDateRange(date, date);
+            } else if (MONTH_DATE_PATTERN.matcher(dateString).matches()) {
+                var month = YearMonth.parse(dateString, MONTH_DATE_FORMAT);
+                return new ReleaseDateRange(month.atDay(1), month.atEndOfMonth());
+            } else if (YEAR_DATE_PATTERN.matcher(dateString).matches()) {
+                var year = Year.parse(dateString, YEAR_DATE_FORMAT);
+                return new ReleaseDateRange(year.atDay(1), year.atMonth(Month.DECEMBER).atEndOfMonth());
             }
-            return calendar.getTime();
-        } catch (ParseException e) {
+        } catch (DateTimeParseException e) {
             throw new InputParamException("invalid date format");
         }
+        throw new InputParamException("invalid date format");
+    }
+
+    private record ReleaseDateRange(LocalDate start, LocalDate end) {
     }
 }
@@ -0,0 +1,105 @@
+package sample.mrezaei.movies.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.services.model.ApiKeyQuota;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * This service limits the rate of requests of each api key by a token bucket.
+ * Each bucket is a single atomic number, so the check is one compare-and-set without any lock.
+ */
+@Service
+public class RateLimitService {
+    private final boolean enabled;
+
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<Integer, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitService(MoviesProperties moviesProperties) {
+        this(moviesProperties, System::nanoTime);
+    }
+
+    RateLimitService(MoviesProperties moviesProperties, LongSupplier nanoClock) {
+        this.enabled = moviesProperties.getRateLimit().isEnabled();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * It takes a token from the bucket of the api key.
+     *
+     * @param quota quota of the api key
+     * @return zero if the request is allowed, otherwise the nanoseconds until the next token is available
+     */
+    public long tryAcquire(ApiKeyQuota quota) {
+        if (!enabled)
+            return 0;
+        var now = nanoClock.getAsLong();
+        var bucket = buckets.get(quota.id());
+        // the bucket is created again when the quota of the key is changed
+        if (bucket == null || !bucket.quota.equals(quota))
+            bucket = buckets.compute(quota.id(), (id, oldBucket) ->
+                    oldBucket != null && oldBucket.quota.equals(quota) ? oldBucket : new TokenBucket(quota, now));
+        return bucket.tryAcquire(now);
+    }
+
+    /**
+     * A full bucket is the same as a new one, so the buckets of idle keys are removed to keep the map small.
+     */
+    @Scheduled(fixedDelayString = "${movies.rate-limit.cleanup-interval:PT1M}")
+    public void removeFullBuckets() {
+        var now = nanoClock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * @param waitNanos nanoseconds until the next token
+     * @return value of `Retry-After` header in whole seconds
+     */
+    public static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * This class is a token bucket in the form of the generic cell rate algorithm.
+     * Instead of the number of tokens, it keeps the time when the bucket becomes full again,
+     * and a request is allowed if that time is less than a whole burst ahead of now.
+     */
+    private static final class TokenBucket {
+        private final ApiKeyQuota quota;
+        private final long emissionInterval;
+        private final long burstTolerance;
+        private final AtomicLong fullAt;
+
+        private TokenBucket(ApiKeyQuota quota, long now) {
+            this.quota = quota;
+            this.emissionInterval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, quota.requestsPerSecond());
+            this.burstTolerance = emissionInterval * (Math.max(1, quota.burst()) - 1);
+            this.fullAt = new AtomicLong(now);
+        }
+
+        private long tryAcquire(long now) {
+            while (true) {
+                var currentFullAt = fullAt.get();
+                var start = Math.max(currentFullAt, now);
+                var waitNanos = start - now - burstTolerance;
+                if (waitNanos > 0)
+                    return waitNanos;
+                if (fullAt.compareAndSet(currentFullAt, start + emissionInterval))
+                    return 0;
+            }
+        }
+
+        private boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package sample.mrezaei.movies.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.exceptions.MovieNotFoundException;
+import sample.mrezaei.movies.services.model.MovieRatingResponse;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This service collects the ratings of movies in memory and writes them to the database in periodic batches.
+ * The pending ratings of every movie are a single striped counter, so concurrent ratings of a popular movie do not contend on a lock,
+ * and the database gets one update per rated movie in each flush instead of one per rating.
+ * Pending ratings are flushed when the application stops, and a failed flush keeps them for the next one.
+ * Flushed ratings are published as a `MovieRatingsChangedEvent` by a thread of this service, so listeners do not delay the other scheduled tasks.
+ */
+@Service
+public class RatingsService {
+    public static final int MIN_SCORE = 1;
+    public static final int MAX_SCORE = 10;
+
+    // a rating is added as one in the high half and its score in the low half, so the count and the sum never disagree
+    private static final long ONE_RATING = 1L << 32;
+    private static final long SCORE_MASK = ONE_RATING - 1;
+
+    // rows are updated in the order of ids, so flushes of several instances do not deadlock
+    private static final String FLUSH_SQL = """
+            update movies
+            set rating_score = (rating_score * rating_count + ?) / (rating_count + ?),
+                rating_count = rating_count + ?,
+                version      = version + 1,
+                updated_at   = now()
+            where id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MoviesRepository moviesRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    // a single thread, so the events of consecutive flushes are handled in order
+    private final Executor eventExecutor;
+
+    private final Map<Integer, PendingRatings> ratings = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public RatingsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MoviesRepository moviesRepository,
+                          ApplicationEventPublisher eventPublisher) {
+        this(jdbcTemplate, transactionManager, moviesRepository, eventPublisher,
+                Executors.newSingleThreadExecutor(Thread.ofPlatform().name("ratings-events").daemon().factory()));
+    }
+
+    RatingsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MoviesRepository moviesRepository,
+                   ApplicationEventPublisher eventPublisher, Executor eventExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.moviesRepository = moviesRepository;
+        this.eventPublisher = eventPublisher;
+        this.eventExecutor = eventExecutor;
+    }
+
+    /**
+     * This function adds a rating to a movie. It is written to the database by the next flush.
+     * Only the first rating of a movie reads the database, to check the movie and load its current rating.
+     *
+     * @param id    movie id
+     * @param score score of the rating, from 1 to 10
+     * @return average rating and number of ratings of the movie, including the ratings which are not flushed yet
+     */
+    public MovieRatingResponse rate(Integer id, Integer score) {
+        if (score == null || score < MIN_SCORE || score > MAX_SCORE)
+            throw new InputParamException("score must be between " + MIN_SCORE + " and " + MAX_SCORE);
+        var rating = ratings.get(id);
+        if (rating == null) {
+            var movie = moviesRepository.findById(id).orElseThrow(MovieNotFoundException::new);
+            rating = ratings.computeIfAbsent(id, k -> new PendingRatings(Aggregate.of(movie)));
+        }
+        rating.pending.add(ONE_RATING | score);
+        return rating.toResponse(id);
+    }
+
+    /**
+     * This function writes the pending ratings of all movies by one batch of updates in a transaction.
+     * The new ratings of the flushed movies are published as a `MovieRatingsChangedEvent`, so caches and indexes show them.
+     *
+     * @return number of updated movies
+     */
+    @Scheduled(fixedDelayString = "${movies.ratings.flush-interval:PT5S}")
+    public int flush() {
+        return flush(true);
+    }
+
+    /**
+     * It writes the pending ratings before the database connections are closed.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush(false);
+        if (eventExecutor instanceof ExecutorService executorService)
+            executorService.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.removed())
+            ratings.remove(event.movie().getId());
+        else
+            ratings.computeIfPresent(event.movie().getId(), (id, rating) -> {
+                rating.base = Aggregate.of(event.movie());
+                return rating;
+            });
+    }
+
+    private int flush(boolean publishChanges) {
+        flushLock.lock();
+        try {
+            // pending ratings are read without reset, they are subtracted only after the transaction is committed
+            var deltas = new TreeMap<Integer, Long>();
+            ratings.forEach((id, rating) -> {
+                var pending = rating.pending.sum();
+                if (pending != 0)
+                    deltas.put(id, pending);
+            });
+            if (deltas.isEmpty())
+                return 0;
+
+            var entries = new ArrayList<>(deltas.entrySet());
+            var updateCounts = transactionTemplate.execute(status ->
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, entries, entries.size(), (statement, entry) -> {
+                        statement.setLong(1, scoreSum(entry.getValue()));
+                        statement.setLong(2, ratingCount(entry.getValue()));
+                        statement.setLong(3, ratingCount(entry.getValue()));
+                        statement.setInt(4, entry.getKey());
+                    }));
+
+            int updated = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                var id = entries.get(i).getKey();
+                var delta = entries.get(i).getValue();
+                var rating = ratings.get(id);
+                if (rating == null)
+                    continue;
+                if (updateCounts == null || updateCounts[0][i] == 0) {
+                    // the movie is removed
+                    ratings.remove(id);
+                    continue;
+                }
+                // the base is moved before the pending ratings, so a concurrent read never misses the flushed ratings
+                rating.base = rating.base.plus(delta);
+                rating.pending.add(-delta);
+                updated++;
+            }
+            if (publishChanges) {
+                // the stored ratings include the ratings of other instances too, they become the base of the next ratings
+                var movies = moviesRepository.findRatings(deltas.keySet());
+                for (var movie : movies) {
+                    var rating = ratings.get(movie.id());
+                    if (rating != null)
+                        rating.base = Aggregate.of(movie);
+                }
+                eventExecutor.execute(() -> eventPublisher.publishEvent(new MovieRatingsChangedEvent(movies)));
+            }
+            return updated;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private static long ratingCount(long packed) {
+        return packed >>> 32;
+    }
+
+    private static long scoreSum(long packed) {
+        return packed & SCORE_MASK;
+    }
+
+    /**
+     * This record is the rating of a movie which is stored in the database.
+     */
+    private record Aggregate(double score, long count) {
+        static Aggregate of(MovieEntity movie) {
+            return of(movie.getRatingScore(), movie.getRatingCount());
+        }
+
+        static Aggregate of(MovieRating movie) {
+            return of(movie.ratingScore(), movie.ratingCount());
+        }
+
+        private static Aggregate of(Double score, Integer count) {
+            return new Aggregate(score == null ? 0 : score, count == null ? 0 : count);
+        }
+
+        Aggregate plus(long packed) {
+            var newCount = count + ratingCount(packed);
+            return newCount == 0 ? this : new Aggregate((score * count + scoreSum(packed)) / newCount, newCount);
+        }
+    }
+
+    private static final class PendingRatings {
+        private final LongAdder pending = new LongAdder();
+        private volatile Aggregate base;
+
+        PendingRatings(Aggregate base) {
+            this.base = base;
+        }
+
+        MovieRatingResponse toResponse(int id) {
+            var current = base.plus(pending.sum());
+            return new MovieRatingResponse(id, current.score(), current.count());
+        }
+    }
+}
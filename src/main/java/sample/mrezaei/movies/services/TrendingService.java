@@ -0,0 +1,157 @@
+package sample.mrezaei.movies.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.services.model.MovieListResponse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This service ranks movies by their recent views, which fade exponentially by time.
+ * Views are counted by a decayed count-min sketch, so the memory is fixed whatever the number of viewed movies is.
+ * A small set of candidates keeps the most viewed movies. A movie replaces the weakest candidate only when its estimate is higher,
+ * so the top list is kept up to date by each view, and a view of a candidate costs only the sketch increments.
+ */
+@Service
+public class TrendingService {
+    // more candidates than returned movies, so a movie which is rising is already tracked when it reaches the top
+    static final int CANDIDATES_PER_MOVIE = 4;
+
+    private static final Comparator<ScoredMovie> RANKING = Comparator
+            .comparingDouble(ScoredMovie::views).reversed()
+            .thenComparingInt(ScoredMovie::id);
+
+    private final MoviesService moviesService;
+    private final DecayedCountMinSketch sketch;
+    private final int size;
+    private final int capacity;
+
+    private final Set<Integer> candidates = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock admissionLock = new ReentrantLock();
+
+    // the lowest estimate of the candidates when it is calculated, estimates only grow until the next rotation
+    private volatile double admissionThreshold;
+
+    @Autowired
+    public TrendingService(MoviesService moviesService, MoviesProperties moviesProperties) {
+        this(moviesService, moviesProperties.getTrending());
+    }
+
+    TrendingService(MoviesService moviesService, MoviesProperties.Trending trending) {
+        this.moviesService = moviesService;
+        var decay = Math.pow(0.5, (double) trending.getSlotDuration().toMillis() / trending.getHalfLife().toMillis());
+        this.sketch = new DecayedCountMinSketch(trending.getSlots(), trending.getSketchWidth(), decay);
+        this.size = trending.getSize();
+        this.capacity = trending.getSize() * CANDIDATES_PER_MOVIE;
+    }
+
+    /**
+     * This function counts a view of a movie. It is called by every request of the movie details, so it takes no lock
+     * unless the movie becomes a candidate.
+     *
+     * @param id movie id
+     */
+    public void recordView(int id) {
+        sketch.increment(id);
+        if (candidates.contains(id))
+            return;
+        var views = sketch.estimate(id);
+        if (candidates.size() >= capacity && views <= admissionThreshold)
+            return;
+        // a busy lock means another movie is being admitted, this movie is tried again by its next view
+        if (!admissionLock.tryLock())
+            return;
+        try {
+            admit(id, views);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the most viewed movies of the recent time.
+     *
+     * @param limit maximum number of movies, it is not more than the trending size
+     * @return movies ordered by their decayed views
+     */
+    public List<MovieListResponse> getTrendingMovies(Integer limit) {
+        if (limit == null)
+            limit = size;
+        if (limit < 1 || limit > size)
+            throw new InputParamException("limit must be between 1 and " + size);
+        var ids = candidates.stream()
+                .map(id -> new ScoredMovie(id, sketch.estimate(id)))
+                .filter(movie -> movie.views() > 0)
+                .sorted(RANKING)
+                .limit(limit)
+                .map(ScoredMovie::id)
+                .toList();
+        if (ids.isEmpty())
+            return List.of();
+        return moviesService.getMoviesByIds(ids).movies().stream()
+                .map(MovieListResponse::fromMovieDetailsResponse)
+                .toList();
+    }
+
+    /**
+     * It starts a new time slot, so older views lose weight and the views of the oldest slot are forgotten.
+     */
+    @Scheduled(fixedRateString = "${movies.trending.slot-duration:PT5M}", initialDelayString = "${movies.trending.slot-duration:PT5M}")
+    public void rotate() {
+        admissionLock.lock();
+        try {
+            sketch.rotate();
+            // the estimates are decayed, so the threshold is calculated again
+            candidates.removeIf(id -> sketch.estimate(id) == 0);
+            admissionThreshold = candidates.stream().mapToDouble(sketch::estimate).min().orElse(0);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.removed())
+            candidates.remove(event.movie().getId());
+    }
+
+    private void admit(int id, double views) {
+        if (candidates.size() < capacity) {
+            candidates.add(id);
+            return;
+        }
+        // the weakest candidate is found by one pass, which also finds the threshold after it is replaced
+        int weakest = -1;
+        double lowest = Double.MAX_VALUE, secondLowest = Double.MAX_VALUE;
+        for (var candidate : candidates) {
+            var candidateViews = sketch.estimate(candidate);
+            if (candidateViews < lowest) {
+                secondLowest = lowest;
+                lowest = candidateViews;
+                weakest = candidate;
+            } else if (candidateViews < secondLowest) {
+                secondLowest = candidateViews;
+            }
+        }
+        if (views <= lowest) {
+            admissionThreshold = lowest;
+            return;
+        }
+        candidates.remove(weakest);
+        candidates.add(id);
+        admissionThreshold = Math.min(secondLowest, views);
+    }
+
+    private record ScoredMovie(int id, double views) {
+    }
+}
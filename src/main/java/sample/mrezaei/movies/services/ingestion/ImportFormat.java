@@ -0,0 +1,34 @@
+package sample.mrezaei.movies.services.ingestion;
+
+import sample.mrezaei.movies.exceptions.InputParamException;
+
+import java.util.Locale;
+
+/**
+ * Formats of the ingested files
+ */
+public enum ImportFormat {
+    /**
+     * comma separated values with a header line of the field names
+     */
+    CSV,
+    /**
+     * newline delimited JSON, one movie per line like the export
+     */
+    NDJSON;
+
+    /**
+     * This function finds the format of a file by its extension.
+     *
+     * @param fileName name of the file
+     * @return format of the file
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        var lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        if (lowerCaseName.endsWith(".csv"))
+            return CSV;
+        if (lowerCaseName.endsWith(".ndjson") || lowerCaseName.endsWith(".jsonl"))
+            return NDJSON;
+        throw new InputParamException("unknown file format of " + fileName + ", it must be .csv, .ndjson or .jsonl");
+    }
+}
@@ -0,0 +1,24 @@
+package sample.mrezaei.movies.services.ingestion;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * This record is the result of an ingestion.
+ *
+ * @param readRows      number of rows which are read from the file
+ * @param writtenRows   number of movies which are upserted, a movie which is repeated in a batch is written once
+ * @param rejectedRows  number of invalid rows which are skipped
+ * @param errors        errors of the first rejected rows
+ * @param duration      duration of the ingestion
+ * @param rowsPerSecond read rows per second
+ */
+public record ImportReport(
+        long readRows,
+        long writtenRows,
+        long rejectedRows,
+        List<String> errors,
+        Duration duration,
+        long rowsPerSecond
+) {
+}
@@ -0,0 +1,131 @@
+package sample.mrezaei.movies.services.ingestion;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.exceptions.InputParamException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This record is one movie of an ingested file, with the same fields as the export.
+ * The values are kept as text, so an invalid value rejects only its own row and the rest of the file is still read.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MovieImportRow(
+        String title,
+        String releaseDate,
+        String posterUrl,
+        String overview,
+        String genre,
+        String averageRating,
+        String ratingCount,
+        String runtime,
+        String language
+) {
+    static final int MAX_TITLE_LENGTH = 100;
+    static final int MAX_POSTER_URL_LENGTH = 500;
+
+    /**
+     * This function validates the row and converts its values.
+     *
+     * @return validated movie
+     * @throws InputParamException if a value is missing or invalid
+     */
+    public ValidMovie validate() {
+        var validTitle = required("title", title);
+        if (validTitle.length() > MAX_TITLE_LENGTH)
+            throw new InputParamException("title is longer than " + MAX_TITLE_LENGTH + " characters");
+        var validPosterUrl = required("posterUrl", posterUrl);
+        if (validPosterUrl.length() > MAX_POSTER_URL_LENGTH)
+            throw new InputParamException("posterUrl is longer than " + MAX_POSTER_URL_LENGTH + " characters");
+        LocalDate validReleaseDate;
+        try {
+            validReleaseDate = LocalDate.parse(required("releaseDate", releaseDate));
+        } catch (DateTimeParseException e) {
+            throw new InputParamException("invalid releaseDate");
+        }
+        var validRating = parseDouble("averageRating", averageRating, 0.0);
+        if (validRating < 0 || validRating > 10)
+            throw new InputParamException("averageRating must be between 0 and 10");
+        var validRatingCount = parseInt("ratingCount", ratingCount, 0);
+        var validRuntime = parseInt("runtime", required("runtime", runtime), 0);
+        if (validRatingCount < 0 || validRuntime < 0)
+            throw new InputParamException("ratingCount and runtime can not be negative");
+        return new ValidMovie(
+                validTitle,
+                validReleaseDate,
+                validPosterUrl,
+                required("overview", overview),
+                parseEnum(Genre.class, "genre", genre),
+                validRuntime,
+                parseEnum(Language.class, "language", language),
+                validRating,
+                validRatingCount
+        );
+    }
+
+    private static String required(String name, String value) {
+        if (value == null || value.isBlank())
+            throw new InputParamException(name + " is empty");
+        return value.trim();
+    }
+
+    private static double parseDouble(String name, String value, double defaultValue) {
+        if (value == null || value.isBlank())
+            return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InputParamException("invalid " + name);
+        }
+    }
+
+    private static int parseInt(String name, String value, int defaultValue) {
+        if (value == null || value.isBlank())
+            return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InputParamException("invalid " + name);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, required(name, value));
+        } catch (IllegalArgumentException e) {
+            throw new InputParamException("invalid " + name);
+        }
+    }
+
+    /**
+     * This record is a validated movie, which can be written to the database.
+     */
+    public record ValidMovie(
+            String title,
+            LocalDate releaseDate,
+            String posterUrl,
+            String overview,
+            Genre genre,
+            int runtime,
+            Language language,
+            double averageRating,
+            int ratingCount
+    ) {
+        /**
+         * @return the natural key of the movie, which is unique in the catalogue
+         */
+        public NaturalKey naturalKey() {
+            return new NaturalKey(title, releaseDate, genre);
+        }
+    }
+
+    public record NaturalKey(
+            String title,
+            LocalDate releaseDate,
+            Genre genre
+    ) {
+    }
+}
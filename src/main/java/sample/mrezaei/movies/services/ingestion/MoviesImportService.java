@@ -0,0 +1,175 @@
+package sample.mrezaei.movies.services.ingestion;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.services.CatalogueStatisticsService;
+import sample.mrezaei.movies.services.MoviesCacheInvalidator;
+import sample.mrezaei.movies.services.search.FullTextIndex;
+import sample.mrezaei.movies.services.search.SearchResultCache;
+import sample.mrezaei.movies.services.search.TitleAutocompleteIndex;
+import sample.mrezaei.movies.services.search.TitleSearchIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * This service ingests movies from CSV or NDJSON files.
+ * Rows are parsed one by one and written by JDBC batches which upsert the movies by their natural key,
+ * so the memory is bounded by the batch size and no entity is kept by the persistence context.
+ */
+@Service
+public class MoviesImportService {
+    static final int MAX_REPORTED_ERRORS = 10;
+
+    // unchanged movies are not updated, so their version and ETag stay the same when a file is ingested again
+    private static final String UPSERT_SQL = """
+            insert into movies (title, release_date, poster_url, overview, genres, runtime_minutes, language, rating_score, rating_count)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict (title, release_date, genres) do update
+            set poster_url      = excluded.poster_url,
+                overview        = excluded.overview,
+                runtime_minutes = excluded.runtime_minutes,
+                language        = excluded.language,
+                rating_score    = excluded.rating_score,
+                rating_count    = excluded.rating_count,
+                version         = movies.version + 1,
+                updated_at      = now()
+            where (movies.poster_url, movies.overview, movies.runtime_minutes, movies.language, movies.rating_score, movies.rating_count)
+                      is distinct from
+                  (excluded.poster_url, excluded.overview, excluded.runtime_minutes, excluded.language, excluded.rating_score, excluded.rating_count)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final int batchSize;
+
+    private final MoviesCacheInvalidator moviesCacheInvalidator;
+    private final SearchResultCache searchResultCache;
+    private final TitleSearchIndex titleSearchIndex;
+    private final TitleAutocompleteIndex titleAutocompleteIndex;
+    private final FullTextIndex fullTextIndex;
+    private final CatalogueStatisticsService catalogueStatisticsService;
+
+    public MoviesImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                               MoviesProperties moviesProperties, MoviesCacheInvalidator moviesCacheInvalidator,
+                               SearchResultCache searchResultCache, TitleSearchIndex titleSearchIndex,
+                               TitleAutocompleteIndex titleAutocompleteIndex, FullTextIndex fullTextIndex,
+                               CatalogueStatisticsService catalogueStatisticsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = moviesProperties.getIngestion().getBatchSize();
+        this.moviesCacheInvalidator = moviesCacheInvalidator;
+        this.searchResultCache = searchResultCache;
+        this.titleSearchIndex = titleSearchIndex;
+        this.titleAutocompleteIndex = titleAutocompleteIndex;
+        this.fullTextIndex = fullTextIndex;
+        this.catalogueStatisticsService = catalogueStatisticsService;
+    }
+
+    /**
+     * This function ingests all movies of the input.
+     * Invalid rows are skipped and reported. Each batch is committed by itself,
+     * so if the file is broken in the middle, the batches before it are kept and the ingestion can be repeated.
+     * The caches and the search index are reloaded at the end, since the changes are not done by JPA.
+     *
+     * @param input  content of the file
+     * @param format format of the file
+     * @return number of rows and the throughput
+     */
+    public ImportReport importMovies(InputStream input, ImportFormat format) throws IOException {
+        var start = System.nanoTime();
+        long readRows = 0;
+        long writtenRows = 0;
+        long rejectedRows = 0;
+        var errors = new ArrayList<String>();
+        // repeated movies of a batch are written once, a statement can not upsert the same row twice
+        var batch = new LinkedHashMap<MovieImportRow.NaturalKey, MovieImportRow.ValidMovie>(batchSize * 4 / 3 + 1);
+        try (var rows = readRows(input, format)) {
+            MovieImportRow row;
+            while ((row = readNextRow(rows, readRows)) != null) {
+                readRows++;
+                try {
+                    var movie = row.validate();
+                    batch.put(movie.naturalKey(), movie);
+                } catch (InputParamException e) {
+                    rejectedRows++;
+                    if (errors.size() < MAX_REPORTED_ERRORS)
+                        errors.add("row " + readRows + ": " + e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    writtenRows += write(batch.values());
+                    batch.clear();
+                }
+            }
+            writtenRows += write(batch.values());
+        } finally {
+            if (writtenRows > 0)
+                reloadCatalogue();
+        }
+        var duration = Duration.ofNanos(System.nanoTime() - start);
+        var rowsPerSecond = readRows * 1_000_000_000L / Math.max(duration.toNanos(), 1);
+        return new ImportReport(readRows, writtenRows, rejectedRows, List.copyOf(errors), duration, rowsPerSecond);
+    }
+
+    private MappingIterator<MovieImportRow> readRows(InputStream input, ImportFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> csvMapper.readerFor(MovieImportRow.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(input);
+            case NDJSON -> objectMapper.readerFor(MovieImportRow.class).readValues(input);
+        };
+    }
+
+    private static MovieImportRow readNextRow(MappingIterator<MovieImportRow> rows, long readRows) {
+        try {
+            return rows.hasNextValue() ? rows.nextValue() : null;
+        } catch (IOException e) {
+            // a broken structure can not be skipped like an invalid value, the rest of the file is not read
+            throw new InputParamException("invalid file after row " + readRows + ": " + e.getMessage());
+        }
+    }
+
+    private int write(Collection<MovieImportRow.ValidMovie> movies) {
+        if (movies.isEmpty())
+            return 0;
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(UPSERT_SQL, movies, movies.size(), (statement, movie) -> {
+                    statement.setString(1, movie.title());
+                    statement.setObject(2, movie.releaseDate());
+                    statement.setString(3, movie.posterUrl());
+                    statement.setString(4, movie.overview());
+                    statement.setString(5, movie.genre().name());
+                    statement.setInt(6, movie.runtime());
+                    statement.setString(7, movie.language().name());
+                    statement.setDouble(8, movie.averageRating());
+                    statement.setInt(9, movie.ratingCount());
+                }));
+        return movies.size();
+    }
+
+    private void reloadCatalogue() {
+        moviesCacheInvalidator.evictAll();
+        searchResultCache.invalidateAll();
+        titleSearchIndex.initIndex();
+        titleAutocompleteIndex.initIndex();
+        fullTextIndex.initIndex();
+        catalogueStatisticsService.refresh();
+        catalogueStatisticsService.refreshLastModified();
+    }
+}
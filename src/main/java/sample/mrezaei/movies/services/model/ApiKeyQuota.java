@@ -0,0 +1,15 @@
+package sample.mrezaei.movies.services.model;
+
+/**
+ * This record is the rate limit quota of an api key.
+ *
+ * @param id                id of the api key
+ * @param requestsPerSecond sustained rate of requests
+ * @param burst             number of requests which can be sent at once after being idle
+ */
+public record ApiKeyQuota(
+        int id,
+        int requestsPerSecond,
+        int burst
+) {
+}
@@ -1,10 +1,14 @@
 package sample.mrezaei.movies.services.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import sample.mrezaei.movies.data.entities.Genre;
 import sample.mrezaei.movies.data.entities.Language;
 import sample.mrezaei.movies.data.entities.MovieEntity;
 
+import java.time.Instant;
+
 public record MovieDetailsResponse(
+        Integer id,
         String title,
         String releaseDate,
         String posterUrl,
@@ -12,18 +16,30 @@ public record MovieDetailsResponse(
         Genre genre,
         Double averageRating,
         Integer runtime,
-        Language language
+        Language language,
+        @JsonIgnore long version,
+        @JsonIgnore Instant lastModified
 ){
+    /**
+     * @return strong ETag of the movie, which changes whenever the row is updated
+     */
+    public String eTag() {
+        return "\"" + version + "\"";
+    }
+
     public static MovieDetailsResponse fromMovieEntity(MovieEntity movieEntity) {
         return new MovieDetailsResponse(
+                movieEntity.getId(),
                 movieEntity.getTitle(),
-                movieEntity.getReleaseDate(),
+                movieEntity.getReleaseDate().toString(),
                 movieEntity.getPosterUrl(),
                 movieEntity.getOverview(),
                 movieEntity.getGenre(),
                 movieEntity.getRatingScore(),
                 movieEntity.getRuntimeInMinutes(),
-                movieEntity.getLanguage()
+                movieEntity.getLanguage(),
+                movieEntity.getVersion(),
+                movieEntity.getUpdatedAt()
         );
     }
 }
@@ -0,0 +1,41 @@
+package sample.mrezaei.movies.services.model;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+
+import java.time.Instant;
+
+/**
+ * This record is one line of the catalogue export.
+ * `updatedAt` of the last exported movie can be used as `updated_since` of the next export.
+ */
+public record MovieExportResponse(
+        Integer id,
+        String title,
+        String releaseDate,
+        String posterUrl,
+        String overview,
+        Genre genre,
+        Double averageRating,
+        Integer ratingCount,
+        Integer runtime,
+        Language language,
+        Instant updatedAt
+) {
+    public static MovieExportResponse fromMovieEntity(MovieEntity movieEntity) {
+        return new MovieExportResponse(
+                movieEntity.getId(),
+                movieEntity.getTitle(),
+                movieEntity.getReleaseDate() == null ? null : movieEntity.getReleaseDate().toString(),
+                movieEntity.getPosterUrl(),
+                movieEntity.getOverview(),
+                movieEntity.getGenre(),
+                movieEntity.getRatingScore(),
+                movieEntity.getRatingCount(),
+                movieEntity.getRuntimeInMinutes(),
+                movieEntity.getLanguage(),
+                movieEntity.getUpdatedAt()
+        );
+    }
+}
@@ -1,6 +1,6 @@
 package sample.mrezaei.movies.services.model;
 
-import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieSummary;
 
 public record MovieListResponse(
         int id,
@@ -9,13 +9,23 @@ public record MovieListResponse(
         String posterUrl,
         Double averageRating
 ) {
-    public static MovieListResponse fromMovieEntity(MovieEntity movieEntity) {
+    public static MovieListResponse fromMovieSummary(MovieSummary movieSummary) {
         return new MovieListResponse(
-                movieEntity.getId(),
-                movieEntity.getTitle(),
-                movieEntity.getReleaseDate(),
-                movieEntity.getPosterUrl(),
-                movieEntity.getRatingScore()
+                movieSummary.id(),
+                movieSummary.title(),
+                movieSummary.releaseDate().toString(),
+                movieSummary.posterUrl(),
+                movieSummary.ratingScore()
+        );
+    }
+
+    public static MovieListResponse fromMovieDetailsResponse(MovieDetailsResponse movieDetails) {
+        return new MovieListResponse(
+                movieDetails.id(),
+                movieDetails.title(),
+                movieDetails.releaseDate(),
+                movieDetails.posterUrl(),
+                movieDetails.averageRating()
         );
     }
 }
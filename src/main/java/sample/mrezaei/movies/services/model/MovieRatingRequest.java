@@ -0,0 +1,16 @@
+package sample.mrezaei.movies.services.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * @param score score of the rating, from 1 to 10
+ */
+public record MovieRatingRequest(
+        @NotNull(message = "Score is empty")
+        @Min(value = 1, message = "Minimum score is 1")
+        @Max(value = 10, message = "Maximum score is 10")
+        Integer score
+) {
+}
@@ -0,0 +1,13 @@
+package sample.mrezaei.movies.services.model;
+
+/**
+ * @param id            movie id
+ * @param averageRating average of all ratings, including the ratings which are not written to the database yet
+ * @param ratingCount   number of all ratings
+ */
+public record MovieRatingResponse(
+        int id,
+        Double averageRating,
+        long ratingCount
+) {
+}
@@ -0,0 +1,26 @@
+package sample.mrezaei.movies.services.model;
+
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.projections.MovieTitle;
+
+public record MovieSuggestionResponse(
+        int id,
+        String title,
+        Double averageRating
+) {
+    public static MovieSuggestionResponse fromMovieTitle(MovieTitle movieTitle) {
+        return new MovieSuggestionResponse(
+                movieTitle.id(),
+                movieTitle.title(),
+                movieTitle.ratingScore()
+        );
+    }
+
+    public static MovieSuggestionResponse fromMovieSummary(MovieSummary movieSummary) {
+        return new MovieSuggestionResponse(
+                movieSummary.id(),
+                movieSummary.title(),
+                movieSummary.ratingScore()
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package sample.mrezaei.movies.services.model;
+
+import java.util.List;
+
+/**
+ * This record is the result of loading many movies by their ids.
+ *
+ * @param movies     found movies, in the order of the requested ids
+ * @param missingIds requested ids which are not found
+ */
+public record MoviesBatchResponse(
+        List<MovieDetailsResponse> movies,
+        List<Integer> missingIds
+) {
+}
@@ -0,0 +1,17 @@
+package sample.mrezaei.movies.services.model;
+
+import java.util.List;
+
+/**
+ * This record is one page of a movies list.
+ *
+ * @param movies     movies of the page
+ * @param nextCursor encoded `PageCursor` of the next page, it is null when there is no next page
+ * @param totalCount number of all results, it is null when it is not requested or not available
+ */
+public record MoviesPage(
+        List<MovieListResponse> movies,
+        String nextCursor,
+        Long totalCount
+) {
+}
@@ -0,0 +1,59 @@
+package sample.mrezaei.movies.services.model;
+
+import org.springframework.data.domain.Sort;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.exceptions.InputParamException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * This record is the position of the last movie of a page, which is used for keyset pagination.
+ * Clients receive it as an opaque Base64 string and send it back to get the next page.
+ *
+ * @param sortColumn sorted entity attribute
+ * @param direction  sort direction
+ * @param value      value of the sorted attribute of the last movie
+ * @param id         id of the last movie, which breaks ties of equal values
+ */
+public record PageCursor(
+        String sortColumn,
+        Sort.Direction direction,
+        Comparable<?> value,
+        int id
+) {
+    private static final String SEPARATOR = ",";
+
+    public static PageCursor after(MovieSummary movieSummary, String sortColumn, Sort.Direction direction) {
+        Comparable<?> value = switch (sortColumn) {
+            case "ratingScore" -> movieSummary.ratingScore();
+            case "releaseDate" -> movieSummary.releaseDate();
+            default -> movieSummary.id();
+        };
+        return new PageCursor(sortColumn, direction, value, movieSummary.id());
+    }
+
+    public String encode() {
+        var text = String.join(SEPARATOR, sortColumn, direction.name(), value.toString(), String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (parts.length != 4)
+                throw new InputParamException("invalid cursor");
+            Comparable<?> value = switch (parts[0]) {
+                case "ratingScore", "relevance" -> Double.valueOf(parts[2]);
+                case "releaseDate" -> LocalDate.parse(parts[2]);
+                case "id" -> Integer.valueOf(parts[2]);
+                default -> throw new InputParamException("invalid cursor");
+            };
+            return new PageCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InputParamException("invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package sample.mrezaei.movies.services.model;
+
+import java.time.Instant;
+
+/**
+ * This record is the version of a response, which is sent in `ETag` and `Last-Modified` headers.
+ *
+ * @param eTag         strong entity tag, including its quotes
+ * @param lastModified last modification time of the response data
+ */
+public record ResourceVersion(
+        String eTag,
+        Instant lastModified
+) {
+}
@@ -0,0 +1,21 @@
+package sample.mrezaei.movies.services.model;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+
+import java.util.Map;
+
+/**
+ * This record is the facet counts of a search.
+ * The counts of a facet apply all filters except the filter of that facet.
+ *
+ * @param totalCount number of movies which match all filters
+ * @param genres     number of matched movies by genre
+ * @param languages  number of matched movies by language
+ */
+public record SearchFacetsResponse(
+        long totalCount,
+        Map<Genre, Long> genres,
+        Map<Language, Long> languages
+) {
+}
@@ -2,6 +2,10 @@ package sample.mrezaei.movies.services.model;
 
 import lombok.Builder;
 import org.springframework.data.domain.Sort;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+
+import java.util.Set;
 
 @Builder
 public record SearchMoviesRequest(
@@ -10,6 +14,17 @@ public record SearchMoviesRequest(
         Sort.Direction sortDirection,
         String releaseDateFrom,
         String releaseDateTo,
-        Double minRating
+        Double minRating,
+        Set<Genre> genres,
+        Set<Language> languages,
+        String cursor,
+        boolean includeTotal,
+        boolean fuzzy
 ) {
+    /**
+     * It shows whether the results are ordered or filtered by the rating, so a change of any rating can change them.
+     */
+    public boolean dependsOnRatings() {
+        return minRating != null || "averageRating".equals(sortBy);
+    }
 }
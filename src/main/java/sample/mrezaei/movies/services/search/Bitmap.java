@@ -0,0 +1,135 @@
+package sample.mrezaei.movies.services.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * This class is a growable set of movie ids, which keeps one bit per id in an array of words.
+ * Sets of ids are intersected and counted word by word, so filtering and counting the whole catalogue takes microseconds.
+ * It is not thread safe. A bitmap which is shared with readers is never changed, the index changes a copy under its lock
+ * and publishes it by a new snapshot.
+ */
+class Bitmap {
+    private static final int WORD_BITS = 64;
+
+    private long[] words;
+
+    Bitmap() {
+        this(new long[1]);
+    }
+
+    private Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    static Bitmap fromIds(int[] ids) {
+        var bitmap = new Bitmap(new long[ids.length == 0 ? 1 : ids[ids.length - 1] / WORD_BITS + 1]);
+        for (int id : ids)
+            bitmap.set(id);
+        return bitmap;
+    }
+
+    Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+
+    void set(int id) {
+        int index = id / WORD_BITS;
+        if (index >= words.length)
+            words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+        words[index] |= 1L << id;
+    }
+
+    void clear(int id) {
+        int index = id / WORD_BITS;
+        if (index < words.length)
+            words[index] &= ~(1L << id);
+    }
+
+    boolean get(int id) {
+        int index = id / WORD_BITS;
+        return index < words.length && (words[index] & (1L << id)) != 0;
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * It keeps only the ids which are in at least one of the bitmaps.
+     *
+     * @param bitmaps accepted ids
+     */
+    void andAny(Collection<Bitmap> bitmaps) {
+        for (int i = 0; i < words.length; i++) {
+            long union = 0;
+            for (var bitmap : bitmaps)
+                union |= bitmap.word(i);
+            words[i] &= union;
+        }
+    }
+
+    /**
+     * It returns the union of the bitmaps.
+     */
+    static Bitmap union(Collection<Bitmap> bitmaps) {
+        var result = new Bitmap();
+        for (var bitmap : bitmaps) {
+            if (bitmap.words.length > result.words.length)
+                result.words = Arrays.copyOf(result.words, bitmap.words.length);
+            for (int i = 0; i < bitmap.words.length; i++)
+                result.words[i] |= bitmap.words[i];
+        }
+        return result;
+    }
+
+    /**
+     * It counts the ids which are in all bitmaps, without building their intersection.
+     *
+     * @param first  ids
+     * @param second ids, null means all ids
+     * @param third  ids, null means all ids
+     * @return number of common ids
+     */
+    static int andCardinality(Bitmap first, Bitmap second, Bitmap third) {
+        int count = 0;
+        for (int i = 0; i < first.words.length; i++) {
+            long word = first.words[i];
+            if (second != null)
+                word &= second.word(i);
+            if (third != null)
+                word &= third.word(i);
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    void removeIf(IntPredicate predicate) {
+        forEach(id -> {
+            if (predicate.test(id))
+                clear(id);
+        });
+    }
+
+    /**
+     * It calls the consumer for every id in ascending order.
+     */
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                consumer.accept(i * WORD_BITS + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private long word(int index) {
+        return index < words.length ? words[index] : 0;
+    }
+}
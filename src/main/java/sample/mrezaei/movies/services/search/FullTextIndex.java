@@ -0,0 +1,354 @@
+package sample.mrezaei.movies.services.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieText;
+import sample.mrezaei.movies.data.projections.SortableMovie;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This service is an in-memory inverted index over the words of movie titles and overviews, which ranks movies by relevance.
+ * Texts are split to lower case words without stop words, and every word keeps a compressed posting list of movie ids and word frequencies.
+ * Movies are scored by BM25, where a title word counts as `TITLE_WEIGHT` overview words,
+ * and the best movies are selected by a bounded heap instead of sorting all hits.
+ * The index is built on startup and follows the database by `MovieChangedEvent`s.
+ */
+@Service
+@RequiredArgsConstructor
+public class FullTextIndex {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    static final int TITLE_WEIGHT = 3;
+
+    static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "he", "her", "his", "in", "into", "is", "it",
+            "its", "of", "on", "or", "she", "that", "the", "their", "them", "they", "this", "to", "was", "were", "who", "will", "with"
+    );
+
+    // the most relevant movie comes first, and equal scores are ordered by id
+    private static final Comparator<ScoredMovie> RANKING = Comparator
+            .comparingDouble(ScoredMovie::score).reversed()
+            .thenComparingInt(ScoredMovie::id);
+
+    private final MoviesRepository moviesRepository;
+    private final MoviesProperties moviesProperties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void initIndex() {
+        if (!moviesProperties.getSearch().isFullTextIndex())
+            return;
+        rebuild(moviesRepository.findTexts());
+    }
+
+    /**
+     * It shows whether the index is built and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isAvailable() {
+        return snapshot != null;
+    }
+
+    /**
+     * This function replaces the whole index by a new one built from the input movies.
+     *
+     * @param movies all movies
+     */
+    public void rebuild(Collection<MovieText> movies) {
+        writeLock.lock();
+        try {
+            var documents = new ConcurrentHashMap<Integer, Document>(movies.size());
+            var builders = new HashMap<String, PostingsBuilder>();
+            long totalLength = 0;
+            var sortedMovies = movies.stream().sorted(Comparator.comparingInt(MovieText::id)).toList();
+            for (var movie : sortedMovies) {
+                var frequencies = termFrequencies(movie);
+                var document = Document.of(movie, frequencies);
+                documents.put(movie.id(), document);
+                totalLength += document.length();
+                frequencies.forEach((term, frequency) -> builders.computeIfAbsent(term, k -> new PostingsBuilder()).add(movie.id(), frequency));
+            }
+            var postings = new ConcurrentHashMap<String, PostingList>(builders.size());
+            builders.forEach((term, builder) -> postings.put(term, builder.build()));
+            snapshot = new Snapshot(postings, documents, new AtomicLong(totalLength));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the most relevant movies which have any word of the query and match the filters.
+     * Pages continue after the cursor position in the order of descending score and ascending id.
+     *
+     * @param filters    lower case query, release date, rating, genre and language filters
+     * @param limit      maximum number of movies
+     * @param afterScore score of the last movie of the previous page, or null for the first page
+     * @param afterId    id of the last movie of the previous page
+     * @return best movies ordered by relevance, and the number of all hits
+     */
+    public Hits search(SearchFilters filters, int limit, Double afterScore, int afterId) {
+        var current = snapshot;
+        if (current == null)
+            return new Hits(List.of(), 0);
+        var terms = new LinkedHashSet<>(analyze(filters.query()));
+        if (terms.isEmpty() || current.documents().isEmpty())
+            return new Hits(List.of(), 0);
+
+        double documentCount = current.documents().size();
+        double averageLength = (double) current.totalLength().get() / documentCount;
+        var scores = new HashMap<Integer, double[]>();
+        for (var term : terms) {
+            var postingList = current.postings().get(term);
+            if (postingList == null)
+                continue;
+            var idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+            postingList.forEach((id, frequency) -> {
+                var document = current.documents().get(id);
+                if (document == null)
+                    return;
+                var norm = K1 * (1 - B + B * document.length() / averageLength);
+                scores.computeIfAbsent(id, k -> new double[1])[0] += idf * frequency * (K1 + 1) / (frequency + norm);
+            });
+        }
+
+        // the heap keeps the worst of the best movies on top, so every other hit is compared with it once
+        var heap = new PriorityQueue<ScoredMovie>(limit + 1, RANKING.reversed());
+        int totalHits = 0;
+        for (var entry : scores.entrySet()) {
+            var document = current.documents().get(entry.getKey());
+            if (document == null || !filters.matchesFilters(document))
+                continue;
+            totalHits++;
+            var hit = new ScoredMovie(entry.getKey(), entry.getValue()[0]);
+            if (afterScore != null && RANKING.compare(hit, new ScoredMovie(afterId, afterScore)) <= 0)
+                continue;
+            if (heap.size() < limit) {
+                heap.add(hit);
+            } else if (limit > 0 && RANKING.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+        var top = new ArrayList<>(heap);
+        top.sort(RANKING);
+        return new Hits(top, totalHits);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.removed())
+            remove(event.movie().getId());
+        else
+            put(MovieText.fromMovieEntity(event.movie()));
+    }
+
+    /**
+     * Only the ratings of the indexed movies are replaced, their texts are not indexed again.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            for (var movie : event.movies())
+                current.documents().computeIfPresent(movie.id(), (id, document) -> document.withRatingScore(movie.ratingScore()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It adds a movie to the index or updates the indexed one.
+     *
+     * @param movie new or changed movie
+     */
+    public void put(MovieText movie) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            var frequencies = termFrequencies(movie);
+            var old = current.documents().get(movie.id());
+            var oldFrequencies = old == null ? Map.<String, Integer>of() : old.frequencies();
+            // most changes are not of the texts, and a posting list of a common word covers most of the catalogue,
+            // so only the words whose frequency is changed are encoded again
+            for (var term : oldFrequencies.keySet())
+                if (!frequencies.containsKey(term))
+                    current.postings().computeIfPresent(term, (k, postingList) -> postingList.without(movie.id()));
+            frequencies.forEach((term, frequency) -> {
+                if (!frequency.equals(oldFrequencies.get(term)))
+                    current.postings().compute(term, (k, postingList) -> postingList == null
+                            ? PostingList.encode(new int[]{movie.id()}, new int[]{frequency}, 1)
+                            : postingList.with(movie.id(), frequency));
+            });
+            var document = Document.of(movie, frequencies);
+            current.documents().put(movie.id(), document);
+            current.totalLength().addAndGet(document.length() - (old == null ? 0 : old.length()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It removes a movie from the index.
+     *
+     * @param id movie id
+     */
+    public void remove(int id) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            var old = current.documents().remove(id);
+            if (old == null)
+                return;
+            for (var term : old.terms())
+                current.postings().computeIfPresent(term, (k, postingList) -> postingList.without(id));
+            current.totalLength().addAndGet(-old.length());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @param term lower case word
+     * @return posting list of the word, or null if no movie has it
+     */
+    PostingList postingList(String term) {
+        var current = snapshot;
+        return current == null ? null : current.postings().get(term);
+    }
+
+    /**
+     * It splits the text to lower case words of letters and digits, without stop words.
+     *
+     * @param text title, overview or query
+     * @return words in the order of the text, with repeats
+     */
+    static List<String> analyze(String text) {
+        var terms = new ArrayList<String>();
+        if (text == null)
+            return terms;
+        var normalized = IndexedMovie.normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            var letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                var term = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(term))
+                    terms.add(term);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * It counts the words of the title and overview of a movie, title words are counted `TITLE_WEIGHT` times.
+     */
+    private static Map<String, Integer> termFrequencies(MovieText movie) {
+        var frequencies = new HashMap<String, Integer>();
+        for (var term : analyze(movie.title()))
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+        for (var term : analyze(movie.overview()))
+            frequencies.merge(term, 1, Integer::sum);
+        return frequencies;
+    }
+
+    /**
+     * This record is a movie and its relevance score to a query.
+     */
+    public record ScoredMovie(int id, double score) {
+    }
+
+    /**
+     * @param movies    best movies ordered by relevance
+     * @param totalHits number of all movies which match the query and filters
+     */
+    public record Hits(List<ScoredMovie> movies, int totalHits) {
+    }
+
+    /**
+     * This record keeps the columns of an indexed movie which filters need, its weighted length, and its distinct words with their frequencies.
+     */
+    private record Document(
+            int id,
+            LocalDate releaseDate,
+            Double ratingScore,
+            Genre genre,
+            Language language,
+            int length,
+            String[] terms,
+            int[] termFrequencies
+    ) implements SortableMovie {
+        static Document of(MovieText movie, Map<String, Integer> frequencies) {
+            var terms = frequencies.keySet().toArray(String[]::new);
+            var termFrequencies = Arrays.stream(terms).mapToInt(frequencies::get).toArray();
+            return new Document(movie.id(), movie.releaseDate(), movie.ratingScore(), movie.genre(), movie.language(),
+                    Arrays.stream(termFrequencies).sum(), terms, termFrequencies);
+        }
+
+        Document withRatingScore(Double ratingScore) {
+            return new Document(id, releaseDate, ratingScore, genre, language, length, terms, termFrequencies);
+        }
+
+        Map<String, Integer> frequencies() {
+            var frequencies = HashMap.<String, Integer>newHashMap(terms.length);
+            for (int i = 0; i < terms.length; i++)
+                frequencies.put(terms[i], termFrequencies[i]);
+            return frequencies;
+        }
+    }
+
+    /**
+     * The posting lists are replaced under the write lock and never changed in place, so queries need no lock.
+     */
+    private record Snapshot(
+            Map<String, PostingList> postings,
+            Map<Integer, Document> documents,
+            AtomicLong totalLength
+    ) {
+    }
+
+    private static class PostingsBuilder {
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int id, int frequency) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ids[size] = id;
+            frequencies[size++] = frequency;
+        }
+
+        PostingList build() {
+            return PostingList.encode(ids, frequencies, size);
+        }
+    }
+}
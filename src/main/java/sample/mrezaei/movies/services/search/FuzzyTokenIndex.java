@@ -0,0 +1,225 @@
+package sample.mrezaei.movies.services.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is a deletion neighbourhood index over the words of movie titles, which finds words within a small edit distance.
+ * Every word is stored with all strings made by deleting up to `maxEdits` of its characters.
+ * Two words are within that distance only if they share one of these strings, so a misspelled word is matched by a few map lookups
+ * and only the words found this way are compared character by character.
+ * It is not thread safe for writers, it is changed under the lock of the title index, and readers only see complete arrays.
+ */
+class FuzzyTokenIndex {
+    private final int maxEdits;
+    // word -> ids of the movies which have it in their title
+    private final Map<String, int[]> postings = new ConcurrentHashMap<>();
+    // string made by deleting characters -> words which it is made from
+    private final Map<String, String[]> deletions = new ConcurrentHashMap<>();
+
+    FuzzyTokenIndex(int maxEdits) {
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * It builds the index of all movies at once, so the id lists are not copied for every movie.
+     *
+     * @param movies   all movies ordered by id
+     * @param maxEdits maximum edit distance which can be matched
+     */
+    static FuzzyTokenIndex build(List<IndexedMovie> movies, int maxEdits) {
+        var index = new FuzzyTokenIndex(maxEdits);
+        var builders = new HashMap<String, TitleSearchIndex.IntArrayBuilder>();
+        for (var movie : movies)
+            for (var token : tokens(movie.normalizedTitle()))
+                builders.computeIfAbsent(token, k -> new TitleSearchIndex.IntArrayBuilder()).add(movie.id());
+        var tokensByDeletion = new HashMap<String, List<String>>();
+        builders.forEach((token, builder) -> {
+            index.postings.put(token, builder.toArray());
+            for (var deletion : deletions(token, maxEdits))
+                tokensByDeletion.computeIfAbsent(deletion, k -> new ArrayList<>(1)).add(token);
+        });
+        tokensByDeletion.forEach((deletion, tokens) -> index.deletions.put(deletion, tokens.toArray(String[]::new)));
+        return index;
+    }
+
+    void add(int id, String normalizedTitle) {
+        for (var token : tokens(normalizedTitle)) {
+            var ids = postings.get(token);
+            if (ids == null)
+                for (var deletion : deletions(token, maxEdits))
+                    deletions.compute(deletion, (k, tokens) -> append(tokens, token));
+            postings.put(token, ids == null ? new int[]{id} : insert(ids, id));
+        }
+    }
+
+    void remove(int id, String normalizedTitle) {
+        for (var token : tokens(normalizedTitle)) {
+            var ids = postings.get(token);
+            if (ids == null)
+                continue;
+            var remaining = delete(ids, id);
+            if (remaining.length > 0) {
+                postings.put(token, remaining);
+                continue;
+            }
+            postings.remove(token);
+            for (var deletion : deletions(token, maxEdits))
+                deletions.computeIfPresent(deletion, (k, tokens) -> without(tokens, token));
+        }
+    }
+
+    /**
+     * This function returns the movies which have a similar word for every word of the query.
+     * Words of up to 2 characters must match exactly, up to 5 characters may have one edit, and longer words may have two edits.
+     * An edit is an insertion, a deletion, a substitution or a transposition of two adjacent characters.
+     *
+     * @param normalizedQuery lower case query
+     * @return ids of matched movies, or null if the query has no words
+     */
+    Bitmap match(String normalizedQuery) {
+        var queryTokens = tokens(normalizedQuery);
+        if (queryTokens.isEmpty())
+            return null;
+        Bitmap result = null;
+        for (var queryToken : queryTokens) {
+            var edits = Math.min(maxEdits, allowedEdits(queryToken.length()));
+            var matched = new Bitmap();
+            for (var token : similarTokens(queryToken, edits)) {
+                var ids = postings.get(token);
+                if (ids != null)
+                    for (int id : ids)
+                        matched.set(id);
+            }
+            if (result == null)
+                result = matched;
+            else
+                result.andAny(List.of(matched));
+            if (result.cardinality() == 0)
+                break;
+        }
+        return result;
+    }
+
+    private Set<String> similarTokens(String queryToken, int edits) {
+        var similar = new HashSet<String>();
+        for (var deletion : deletions(queryToken, edits)) {
+            var tokens = deletions.get(deletion);
+            if (tokens == null)
+                continue;
+            for (var token : tokens)
+                if (!similar.contains(token) && distance(queryToken, token, edits) <= edits)
+                    similar.add(token);
+        }
+        return similar;
+    }
+
+    static int allowedEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * It splits the text to its words, which are the runs of letters and digits.
+     */
+    static Set<String> tokens(String text) {
+        var tokens = new LinkedHashSet<String>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            var letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * It returns the word and all strings made by deleting up to `edits` characters of it.
+     */
+    static Set<String> deletions(String token, int edits) {
+        var result = new HashSet<String>();
+        result.add(token);
+        var current = List.of(token);
+        for (int edit = 0; edit < edits; edit++) {
+            var next = new ArrayList<String>();
+            for (var text : current)
+                for (int i = 0; i < text.length(); i++) {
+                    var deletion = text.substring(0, i) + text.substring(i + 1);
+                    if (result.add(deletion))
+                        next.add(deletion);
+                }
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * It returns the optimal string alignment distance of the texts, or `max + 1` if it is more than `max`.
+     */
+    static int distance(String first, String second, int max) {
+        if (Math.abs(first.length() - second.length()) > max)
+            return max + 1;
+        var previous2 = new int[second.length() + 1];
+        var previous = new int[second.length() + 1];
+        var current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++)
+            previous[j] = j;
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2) && first.charAt(i - 2) == second.charAt(j - 1))
+                    value = Math.min(value, previous2[j - 2] + 1);
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > max)
+                return max + 1;
+            var recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[second.length()], max + 1);
+    }
+
+    private static String[] append(String[] tokens, String token) {
+        if (tokens == null)
+            return new String[]{token};
+        var result = Arrays.copyOf(tokens, tokens.length + 1);
+        result[tokens.length] = token;
+        return result;
+    }
+
+    private static String[] without(String[] tokens, String token) {
+        var result = Arrays.stream(tokens).filter(other -> !other.equals(token)).toArray(String[]::new);
+        return result.length == 0 ? null : result;
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0)
+            return ids;
+        position = -position - 1;
+        var result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0)
+            return ids;
+        var result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package sample.mrezaei.movies.services.search;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.projections.SortableMovie;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * This record is the in-memory copy of the movie columns which search needs for matching, filtering and sorting.
+ */
+public record IndexedMovie(
+        int id,
+        String normalizedTitle,
+        LocalDate releaseDate,
+        Double ratingScore,
+        Genre genre,
+        Language language
+) implements SortableMovie {
+    public static IndexedMovie fromMovieEntity(MovieEntity movieEntity) {
+        return new IndexedMovie(
+                movieEntity.getId(),
+                normalize(movieEntity.getTitle()),
+                movieEntity.getReleaseDate(),
+                movieEntity.getRatingScore(),
+                movieEntity.getGenre(),
+                movieEntity.getLanguage()
+        );
+    }
+
+    public static IndexedMovie fromMovieSummary(MovieSummary movieSummary) {
+        return new IndexedMovie(
+                movieSummary.id(),
+                normalize(movieSummary.title()),
+                movieSummary.releaseDate(),
+                movieSummary.ratingScore(),
+                movieSummary.genre(),
+                movieSummary.language()
+        );
+    }
+
+    /**
+     * It normalizes a text the same way for titles and queries, so matching is case-insensitive.
+     *
+     * @param text title or query
+     * @return lower case text
+     */
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,123 @@
+package sample.mrezaei.movies.services.search;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * This class is a compressed posting list of a term, which keeps the ids of the movies which have the term and its frequency in each of them.
+ * The ids are stored as gaps from the previous id, and the gaps and frequencies are variable length integers,
+ * so an entry usually takes two or three bytes instead of eight. It is immutable, a change builds a new list.
+ */
+class PostingList {
+    private final byte[] data;
+    private final int size;
+
+    private PostingList(byte[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    /**
+     * @param ids         ascending movie ids
+     * @param frequencies frequency of the term in every movie
+     * @param size        number of entries of the arrays
+     */
+    static PostingList encode(int[] ids, int[] frequencies, int size) {
+        var output = new ByteArrayOutputStream(size * 3);
+        int previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarInt(output, ids[i] - previous);
+            writeVarInt(output, frequencies[i]);
+            previous = ids[i];
+        }
+        return new PostingList(output.toByteArray(), size);
+    }
+
+    /**
+     * @return number of movies which have the term
+     */
+    int size() {
+        return size;
+    }
+
+    int byteSize() {
+        return data.length;
+    }
+
+    void forEach(PostingConsumer consumer) {
+        int position = 0, id = 0;
+        for (int i = 0; i < size; i++) {
+            int value = 0, shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += value;
+
+            int frequency = 0;
+            shift = 0;
+            do {
+                b = data[position++];
+                frequency |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            consumer.accept(id, frequency);
+        }
+    }
+
+    /**
+     * It returns a list which has the movie with the frequency, instead of its previous frequency.
+     */
+    PostingList with(int id, int frequency) {
+        var ids = new int[size + 1];
+        var frequencies = new int[size + 1];
+        var count = new int[1];
+        var added = new boolean[1];
+        forEach((otherId, otherFrequency) -> {
+            if (!added[0] && otherId >= id) {
+                ids[count[0]] = id;
+                frequencies[count[0]++] = frequency;
+                added[0] = true;
+                if (otherId == id)
+                    return;
+            }
+            ids[count[0]] = otherId;
+            frequencies[count[0]++] = otherFrequency;
+        });
+        if (!added[0]) {
+            ids[count[0]] = id;
+            frequencies[count[0]++] = frequency;
+        }
+        return encode(ids, frequencies, count[0]);
+    }
+
+    /**
+     * It returns a list without the movie, or null if no movie remains.
+     */
+    PostingList without(int id) {
+        var ids = new int[size];
+        var frequencies = new int[size];
+        var count = new int[1];
+        forEach((otherId, frequency) -> {
+            if (otherId != id) {
+                ids[count[0]] = otherId;
+                frequencies[count[0]++] = frequency;
+            }
+        });
+        return count[0] == 0 ? null : encode(ids, frequencies, count[0]);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    @FunctionalInterface
+    interface PostingConsumer {
+        void accept(int id, int frequency);
+    }
+}
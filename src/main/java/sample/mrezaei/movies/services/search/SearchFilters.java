@@ -0,0 +1,81 @@
+package sample.mrezaei.movies.services.search;
+
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.projections.SortableMovie;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * This record is the normalized form of the search parameters which decide the result set, regardless of its sort and page.
+ *
+ * @param query           lower case search query
+ * @param releaseDateFrom resolved start of release date range
+ * @param releaseDateTo   resolved end of release date range
+ * @param minRating       minimum rating score
+ * @param genres          accepted genres, null when genres are not filtered
+ * @param languages       accepted languages, null when languages are not filtered
+ * @param fuzzy           are the words of the query matched with typos
+ */
+public record SearchFilters(
+        String query,
+        LocalDate releaseDateFrom,
+        LocalDate releaseDateTo,
+        Double minRating,
+        Set<Genre> genres,
+        Set<Language> languages,
+        boolean fuzzy
+) {
+    /**
+     * It shows whether the results of these filters include all results of the other filters.
+     * It is true when the other filters are equal or a refinement of these ones.
+     * A longer fuzzy query is not a refinement, because its words can match other words, so fuzzy queries must be equal.
+     *
+     * @param other other filters
+     * @return true if the other results are a subset of these results
+     */
+    public boolean includes(SearchFilters other) {
+        return fuzzy == other.fuzzy()
+                && (fuzzy ? other.query().equals(query) : other.query().contains(query))
+                && (releaseDateFrom == null || (other.releaseDateFrom() != null && !other.releaseDateFrom().isBefore(releaseDateFrom)))
+                && (releaseDateTo == null || (other.releaseDateTo() != null && !other.releaseDateTo().isAfter(releaseDateTo)))
+                && (minRating == null || (other.minRating() != null && other.minRating() >= minRating))
+                && (genres == null || (other.genres() != null && genres.containsAll(other.genres())))
+                && (languages == null || (other.languages() != null && languages.containsAll(other.languages())));
+    }
+
+    /**
+     * It shows whether there is a release date or rating filter.
+     */
+    public boolean hasRangeFilters() {
+        return releaseDateFrom != null || releaseDateTo != null || minRating != null;
+    }
+
+    /**
+     * It checks the release date and rating filters.
+     */
+    public boolean matchesRangeFilters(SortableMovie movie) {
+        return (releaseDateFrom == null || !movie.releaseDate().isBefore(releaseDateFrom))
+                && (releaseDateTo == null || !movie.releaseDate().isAfter(releaseDateTo))
+                && (minRating == null || movie.ratingScore() >= minRating);
+    }
+
+    /**
+     * It checks the release date, rating, genre and language filters.
+     */
+    public boolean matchesFilters(SortableMovie movie) {
+        return matchesRangeFilters(movie)
+                && (genres == null || genres.contains(movie.genre()))
+                && (languages == null || languages.contains(movie.language()));
+    }
+
+    /**
+     * It checks the query and all filters.
+     * A fuzzy query is not checked, because it is only applied to results of the same fuzzy query.
+     */
+    public boolean matches(MovieSummary movie) {
+        return (fuzzy || IndexedMovie.normalize(movie.title()).contains(query)) && matchesFilters(movie);
+    }
+}
@@ -0,0 +1,204 @@
+package sample.mrezaei.movies.services.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class caches complete search result sets by their normalized filters.
+ * A request which is a refinement of a cached request, e.g. a longer query or a narrower date range or a higher minimum rating,
+ * is answered by filtering the cached superset in memory instead of querying the database.
+ */
+@Component
+public class SearchResultCache implements MeterBinder {
+    public static final String SEARCH_RESULTS_CACHE = "searchResults";
+
+    private static final int MAX_RESULTS_PER_QUERY = 8;
+
+    private final Cache<String, List<CachedResult>> cache;
+    /**
+     * The filters whose result sets were too large to be cached, so their first pages are fetched alone
+     */
+    private final Cache<SearchFilters, Boolean> oversizedFilters;
+    private final int maxResultSize;
+
+    public SearchResultCache(MoviesProperties moviesProperties) {
+        var cacheSpec = moviesProperties.getCache().getSearchResults();
+        this.maxResultSize = moviesProperties.getSearch().getMaxCachedResultSize();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheSpec.getMaximumSize())
+                .weigher((String query, List<CachedResult> results) -> results.stream().mapToInt(result -> result.movies().size() + 1).sum())
+                .expireAfterWrite(cacheSpec.getTimeToLive())
+                .recordStats()
+                .build();
+        this.oversizedFilters = Caffeine.newBuilder()
+                .maximumSize(cacheSpec.getMaximumSize())
+                .expireAfterWrite(cacheSpec.getTimeToLive())
+                .build();
+    }
+
+    /**
+     * @return the maximum number of movies of a result set which can be cached
+     */
+    public int getMaxResultSize() {
+        return maxResultSize;
+    }
+
+    public Cache<String, List<CachedResult>> getCache() {
+        return cache;
+    }
+
+    /**
+     * This function finds a cached result set which includes all results of the filters.
+     * Refined queries start with the previous query, so cached results are looked up by the query and its prefixes.
+     *
+     * @param filters search filters
+     * @return all movies of a cached superset, or null if there is no such result set
+     */
+    public List<MovieSummary> findSuperset(SearchFilters filters) {
+        var query = filters.query();
+        var exactResults = cache.getIfPresent(query);
+        var result = findIncludingResult(exactResults, filters);
+        if (result != null)
+            return result;
+        for (int length = query.length() - 1; length > 0; length--) {
+            var prefix = query.substring(0, length);
+            // prefixes are looked up quietly to keep the statistics of the cache meaningful
+            result = findIncludingResult(cache.policy().getIfPresentQuietly(prefix), filters);
+            if (result != null) {
+                cache.getIfPresent(prefix);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * It keeps a complete result set of the filters.
+     *
+     * @param filters search filters
+     * @param movies  all movies which match the filters
+     */
+    public void put(SearchFilters filters, List<MovieSummary> movies) {
+        if (movies.size() > maxResultSize)
+            return;
+        var cachedResult = new CachedResult(filters, List.copyOf(movies));
+        cache.asMap().merge(filters.query(), List.of(cachedResult), (oldResults, newResults) -> {
+            var results = new ArrayList<CachedResult>(MAX_RESULTS_PER_QUERY);
+            results.add(cachedResult);
+            oldResults.stream()
+                    .filter(oldResult -> !cachedResult.filters().includes(oldResult.filters()))
+                    .limit(MAX_RESULTS_PER_QUERY - 1)
+                    .forEach(results::add);
+            return List.copyOf(results);
+        });
+    }
+
+    /**
+     * It remembers that the result set of the filters has more movies than a cached result can keep.
+     *
+     * @param filters search filters
+     */
+    public void putOversized(SearchFilters filters) {
+        oversizedFilters.put(filters, Boolean.TRUE);
+    }
+
+    /**
+     * @param filters search filters
+     * @return true if the result set of the filters was recently too large to be cached
+     */
+    public boolean isOversized(SearchFilters filters) {
+        return oversizedFilters.getIfPresent(filters) != null;
+    }
+
+    /**
+     * It publishes the statistics of the cache as `cache.*` metrics, like the caches of the cache manager.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, SEARCH_RESULTS_CACHE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * It updates the ratings of the cached movies instead of dropping the results.
+     * A result which filters by the rating loses a movie which falls below its minimum, and gains a movie which reaches it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        var movies = new HashMap<Integer, MovieSummary>();
+        for (var movie : event.movies())
+            movies.put(movie.id(), movie.toMovieSummary());
+        for (var query : cache.asMap().keySet())
+            cache.asMap().computeIfPresent(query, (k, results) -> {
+                var updatedResults = results.stream().map(result -> withRatings(result, movies)).filter(Objects::nonNull).toList();
+                return updatedResults.isEmpty() ? null : updatedResults;
+            });
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        oversizedFilters.invalidateAll();
+    }
+
+    private static List<MovieSummary> findIncludingResult(List<CachedResult> results, SearchFilters filters) {
+        if (results == null)
+            return null;
+        for (var result : results)
+            if (result.filters().includes(filters))
+                return result.movies();
+        return null;
+    }
+
+    /**
+     * It returns the result with the rated movies, or null if it is not known whether a rated movie belongs to it.
+     */
+    private static CachedResult withRatings(CachedResult result, Map<Integer, MovieSummary> ratedMovies) {
+        var filters = result.filters();
+        var movies = new ArrayList<MovieSummary>(result.movies().size());
+        var missing = new HashMap<>(ratedMovies);
+        for (var movie : result.movies()) {
+            var ratedMovie = missing.remove(movie.id());
+            if (ratedMovie == null)
+                movies.add(movie);
+            else if (filters.matchesRangeFilters(ratedMovie))
+                movies.add(ratedMovie);
+        }
+        // only the rating filter can add a movie to a result, and the query is only checked when it is not fuzzy
+        if (filters.minRating() != null)
+            for (var ratedMovie : missing.values())
+                if (filters.matchesFilters(ratedMovie)) {
+                    if (filters.fuzzy())
+                        return null;
+                    if (filters.matches(ratedMovie))
+                        movies.add(ratedMovie);
+                }
+        if (missing.size() == ratedMovies.size() && movies.size() == result.movies().size())
+            return result;
+        return new CachedResult(filters, List.copyOf(movies));
+    }
+
+    public record CachedResult(
+            SearchFilters filters,
+            List<MovieSummary> movies
+    ) {
+    }
+}
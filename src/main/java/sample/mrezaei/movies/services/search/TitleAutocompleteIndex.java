@@ -0,0 +1,397 @@
+package sample.mrezaei.movies.services.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieTitle;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This service is an in-memory prefix trie over movie titles, which answers typeahead requests.
+ * Every lower case title is added from its start and from the start of each of its words, so a prefix matches any word of a title.
+ * It is a radix trie, where a node holds the characters up to the next branch, so the number of nodes is bounded by twice the number of keys.
+ * Every node keeps the ids of the best movies under it, ranked by rating score and then by rating count,
+ * so a lookup only walks the characters of the prefix, whatever the size of the catalogue is.
+ * The trie is built on startup and follows the database by `MovieChangedEvent`s.
+ */
+@Service
+@RequiredArgsConstructor
+public class TitleAutocompleteIndex {
+    private static final Comparator<MovieTitle> RANKING = Comparator
+            .comparing(MovieTitle::ratingScore, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(MovieTitle::ratingCount, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparingInt(MovieTitle::id);
+
+    private final MoviesRepository moviesRepository;
+    private final MoviesProperties moviesProperties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Trie trie;
+
+    @PostConstruct
+    public void initIndex() {
+        if (!moviesProperties.getSearch().isAutocompleteIndex())
+            return;
+        rebuild(moviesRepository.findTitles());
+    }
+
+    /**
+     * It shows whether the trie is built and can answer lookups.
+     *
+     * @return true if the trie is ready
+     */
+    public boolean isAvailable() {
+        return trie != null;
+    }
+
+    /**
+     * This function replaces the whole trie by a new one built from the input movies.
+     *
+     * @param movies all movies
+     */
+    public void rebuild(Collection<MovieTitle> movies) {
+        writeLock.lock();
+        try {
+            var next = new Trie(new Node(""), new ConcurrentHashMap<>(movies.size()), moviesProperties.getSearch().getAutocompleteSize());
+            for (var movie : movies) {
+                next.movies().put(movie.id(), movie);
+                for (var key : keys(movie.title()))
+                    next.insert(key, movie.id());
+            }
+            // the best movies are ranked once from the leaves up, instead of on every insert
+            next.rankAll(next.root());
+            trie = next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns the best movies which a word of their title starts with the prefix, ignoring case.
+     *
+     * @param prefix typed text
+     * @param limit  maximum number of movies, it is not more than the autocomplete size
+     * @return movies ordered by rating score and rating count
+     */
+    public List<MovieTitle> suggest(String prefix, int limit) {
+        var current = trie;
+        if (current == null)
+            return List.of();
+        var node = current.root().find(IndexedMovie.normalize(prefix.stripLeading()));
+        if (node == null)
+            return List.of();
+        var top = node.top;
+        var result = new ArrayList<MovieTitle>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && result.size() < limit; i++) {
+            var movie = current.movies().get(top[i]);
+            if (movie != null)
+                result.add(movie);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.removed())
+            remove(event.movie().getId());
+        else
+            put(MovieTitle.fromMovieEntity(event.movie()));
+    }
+
+    /**
+     * The rated movies are ranked again on the paths of their titles.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        for (var movie : event.movies())
+            put(new MovieTitle(movie.id(), movie.title(), movie.ratingScore(), movie.ratingCount()));
+    }
+
+    /**
+     * It adds a movie to the trie or updates the added one.
+     * Only the nodes on the paths of its old and new title are ranked again.
+     *
+     * @param movie new or changed movie
+     */
+    public void put(MovieTitle movie) {
+        writeLock.lock();
+        try {
+            var current = trie;
+            if (current == null)
+                return;
+            // the old title is removed first, because a changed rating can move the movie out of the best movies of a node
+            var old = current.movies().put(movie.id(), movie);
+            if (old != null)
+                for (var key : keys(old.title()))
+                    current.remove(current.root(), key, 0, movie.id());
+            for (var key : keys(movie.title()))
+                current.add(current.root(), key, 0, movie.id());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It removes a movie from the trie.
+     *
+     * @param id movie id
+     */
+    public void remove(int id) {
+        writeLock.lock();
+        try {
+            var current = trie;
+            if (current == null)
+                return;
+            var old = current.movies().remove(id);
+            if (old != null)
+                for (var key : keys(old.title()))
+                    current.remove(current.root(), key, 0, id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It returns the lower case title from its start and from the start of each word after a space.
+     */
+    static Set<String> keys(String title) {
+        var text = IndexedMovie.normalize(title);
+        var keys = new LinkedHashSet<String>();
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) != ' ' && (i == 0 || text.charAt(i - 1) == ' '))
+                keys.add(text.substring(i));
+        return keys;
+    }
+
+    /**
+     * The lists of a node are replaced under the write lock and never changed in place, so lookups need no lock.
+     * A node is split or merged by replacing it with a new node in the children of its parent, so a lookup sees either the old or the new one.
+     */
+    private record Trie(Node root, Map<Integer, MovieTitle> movies, int size) {
+
+        /**
+         * It adds the key without ranking, it is only used before `rankAll`.
+         */
+        void insert(String key, int id) {
+            var node = root;
+            for (int depth = 0; depth < key.length(); depth += node.label.length())
+                node = node.childOrCreate(key, depth);
+            node.terminals = Node.insert(node.terminals, id);
+        }
+
+        void add(Node node, String key, int depth, int id) {
+            if (depth == key.length()) {
+                node.terminals = Node.insert(node.terminals, id);
+            } else {
+                var child = node.childOrCreate(key, depth);
+                add(child, key, depth + child.label.length(), id);
+            }
+            rank(node);
+        }
+
+        void remove(Node node, String key, int depth, int id) {
+            if (depth == key.length()) {
+                node.terminals = Node.delete(node.terminals, id);
+            } else {
+                var child = node.child(key.charAt(depth));
+                if (child == null || !key.startsWith(child.label, depth))
+                    return;
+                remove(child, key, depth + child.label.length(), id);
+                if (child.isEmpty())
+                    node.replaceChild(child, null);
+                else if (child.terminals.length == 0 && child.children.length == 1)
+                    node.replaceChild(child, child.mergeWithChild());
+            }
+            rank(node);
+        }
+
+        void rankAll(Node node) {
+            for (var child : node.children)
+                rankAll(child);
+            rank(node);
+        }
+
+        /**
+         * The best movies of a node are among the movies which end at it and the best movies of its children.
+         * A movie can be under more than one child by different words of its title, so repeats are skipped after sorting.
+         */
+        private void rank(Node node) {
+            var candidates = new ArrayList<MovieTitle>(node.terminals.length + node.children.length * size);
+            for (int id : node.terminals)
+                addCandidate(candidates, id);
+            for (var child : node.children)
+                for (int id : child.top)
+                    addCandidate(candidates, id);
+            candidates.sort(RANKING);
+            var top = new int[Math.min(size, candidates.size())];
+            int count = 0;
+            for (int i = 0; i < candidates.size() && count < top.length; i++)
+                if (count == 0 || top[count - 1] != candidates.get(i).id())
+                    top[count++] = candidates.get(i).id();
+            top = Arrays.copyOf(top, count);
+            // a leaf of one movie, which most leaves are, shares its array of ids
+            node.top = Arrays.equals(top, node.terminals) ? node.terminals : top;
+        }
+
+        private void addCandidate(List<MovieTitle> candidates, int id) {
+            var movie = movies.get(id);
+            if (movie != null)
+                candidates.add(movie);
+        }
+    }
+
+    /**
+     * This class is a node of a radix trie. Its label is the characters from its parent, so a chain of nodes with one child is one node
+     * which keeps one list of best movies.
+     */
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+
+        private final String label;
+        // children are sorted by the first character of their label
+        private volatile Node[] children = NO_CHILDREN;
+        private int[] terminals = NO_IDS;
+        private volatile int[] top = NO_IDS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        private Node(String label, Node from) {
+            this.label = label;
+            this.children = from.children;
+            this.terminals = from.terminals;
+            this.top = from.top;
+        }
+
+        /**
+         * @return the node which the prefix ends at or inside its label, or null if no key starts with the prefix
+         */
+        Node find(String prefix) {
+            var node = this;
+            int depth = 0;
+            while (depth < prefix.length()) {
+                node = node.child(prefix.charAt(depth));
+                if (node == null)
+                    return null;
+                int length = Math.min(node.label.length(), prefix.length() - depth);
+                if (!prefix.regionMatches(depth, node.label, 0, length))
+                    return null;
+                depth += length;
+            }
+            return node;
+        }
+
+        Node child(char first) {
+            var current = children;
+            int position = position(current, first);
+            return position >= 0 ? current[position] : null;
+        }
+
+        /**
+         * It returns the child which the key continues with from the depth. A child whose label only starts like the key
+         * is split into a node of the shared characters and a node of the rest of its label.
+         */
+        Node childOrCreate(String key, int depth) {
+            int position = position(children, key.charAt(depth));
+            if (position < 0) {
+                var child = new Node(key.substring(depth));
+                var result = new Node[children.length + 1];
+                System.arraycopy(children, 0, result, 0, -position - 1);
+                result[-position - 1] = child;
+                System.arraycopy(children, -position - 1, result, -position, children.length + position + 1);
+                children = result;
+                return child;
+            }
+            var child = children[position];
+            int shared = 1;
+            while (shared < child.label.length() && depth + shared < key.length() && child.label.charAt(shared) == key.charAt(depth + shared))
+                shared++;
+            if (shared == child.label.length())
+                return child;
+            var split = new Node(child.label.substring(0, shared));
+            split.children = new Node[]{new Node(child.label.substring(shared), child)};
+            split.top = child.top;
+            replaceChild(child, split);
+            return split;
+        }
+
+        /**
+         * It replaces a child by another node with the same first character, or removes it if the other node is null.
+         */
+        void replaceChild(Node child, Node other) {
+            int position = position(children, child.label.charAt(0));
+            if (position < 0)
+                return;
+            Node[] result;
+            if (other != null) {
+                result = children.clone();
+                result[position] = other;
+            } else {
+                result = new Node[children.length - 1];
+                System.arraycopy(children, 0, result, 0, position);
+                System.arraycopy(children, position + 1, result, position, children.length - position - 1);
+            }
+            children = result;
+        }
+
+        /**
+         * @return a node in place of this node and its only child
+         */
+        Node mergeWithChild() {
+            var child = children[0];
+            return new Node(label + child.label, child);
+        }
+
+        boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+
+        private static int position(Node[] nodes, char first) {
+            int low = 0, high = nodes.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                var key = nodes[middle].label.charAt(0);
+                if (key < first)
+                    low = middle + 1;
+                else if (key > first)
+                    high = middle - 1;
+                else
+                    return middle;
+            }
+            return -(low + 1);
+        }
+
+        private static int[] insert(int[] ids, int id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0)
+                return ids;
+            position = -position - 1;
+            var result = new int[ids.length + 1];
+            System.arraycopy(ids, 0, result, 0, position);
+            result[position] = id;
+            System.arraycopy(ids, position, result, position + 1, ids.length - position);
+            return result;
+        }
+
+        private static int[] delete(int[] ids, int id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position < 0)
+                return ids;
+            var result = new int[ids.length - 1];
+            System.arraycopy(ids, 0, result, 0, position);
+            System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+            return result;
+        }
+    }
+}
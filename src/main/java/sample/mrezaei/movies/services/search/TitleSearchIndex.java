@@ -0,0 +1,421 @@
+package sample.mrezaei.movies.services.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.services.model.SearchFacetsResponse;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This service is an in-memory n-gram inverted index over movie titles.
+ * Every lower case title is split to all of its 1 to 3 character grams and every gram keeps a sorted array of movie ids.
+ * A query is answered by intersecting the posting lists of its grams, so the cost depends on the query and not on the table size.
+ * It also keeps a bitmap of movie ids for every genre and language, which filter the matched movies and count their facets.
+ * Fuzzy queries are matched word by word by a deletion neighbourhood index, which tolerates one or two typos in every word.
+ * The index is built on startup and follows the database by `MovieChangedEvent`s.
+ */
+@Service
+@RequiredArgsConstructor
+public class TitleSearchIndex {
+    static final int GRAM_SIZE = 3;
+
+    private final MoviesRepository moviesRepository;
+    private final MoviesProperties moviesProperties;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void initIndex() {
+        if (!moviesProperties.getSearch().isInMemoryIndex())
+            return;
+        rebuild(moviesRepository.findSummaries(null, Pageable.unpaged()).stream()
+                .map(IndexedMovie::fromMovieSummary)
+                .toList());
+    }
+
+    /**
+     * It shows whether the index is built and can answer queries.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isAvailable() {
+        return snapshot != null;
+    }
+
+    /**
+     * This function replaces the whole index by a new one built from the input movies.
+     *
+     * @param movies all movies
+     */
+    public void rebuild(Collection<IndexedMovie> movies) {
+        writeLock.lock();
+        try {
+            Map<String, IntArrayBuilder> builders = new HashMap<>();
+            var sortedMovies = movies.stream()
+                    .sorted(Comparator.comparingInt(IndexedMovie::id))
+                    .toList();
+            sortedMovies.forEach(movie -> grams(movie.normalizedTitle(), 1)
+                    .forEach(gram -> builders.computeIfAbsent(gram, k -> new IntArrayBuilder()).add(movie.id())));
+
+            var postings = new ConcurrentHashMap<String, int[]>(builders.size());
+            builders.forEach((gram, builder) -> postings.put(gram, builder.toArray()));
+            var indexedMovies = new ConcurrentHashMap<Integer, IndexedMovie>(movies.size());
+            var all = new Bitmap();
+            var genres = newBitmaps(Genre.class);
+            var languages = newBitmaps(Language.class);
+            movies.forEach(movie -> {
+                indexedMovies.put(movie.id(), movie);
+                all.set(movie.id());
+                setAttributes(genres, languages, movie);
+            });
+            var fuzzyTokens = FuzzyTokenIndex.build(sortedMovies, moviesProperties.getSearch().getMaxEditDistance());
+            snapshot = new Snapshot(postings, indexedMovies, all, genres, languages, fuzzyTokens);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This function returns all movies which their title contains the query, ignoring case.
+     * It gives exactly the same result as `lower(title) like '%query%'`.
+     *
+     * @param query search query
+     * @return matched movies ordered by id
+     */
+    public List<IndexedMovie> search(String query) {
+        return search(new SearchFilters(IndexedMovie.normalize(query), null, null, null, null, null, false));
+    }
+
+    /**
+     * This function returns all movies which match the query and all filters.
+     * Genre and language filters are applied by intersecting bitmaps, before any movie is looked up.
+     *
+     * @param filters normalized query and filters
+     * @return matched movies ordered by id
+     */
+    public List<IndexedMovie> search(SearchFilters filters) {
+        var current = snapshot;
+        if (current == null)
+            return List.of();
+        var matched = match(current, filters);
+        if (filters.genres() != null)
+            matched.andAny(filters.genres().stream().map(current.genres()::get).toList());
+        if (filters.languages() != null)
+            matched.andAny(filters.languages().stream().map(current.languages()::get).toList());
+
+        var result = new ArrayList<IndexedMovie>(matched.cardinality());
+        matched.forEach(id -> {
+            var movie = current.movies().get(id);
+            if (movie != null)
+                result.add(movie);
+        });
+        return result;
+    }
+
+    /**
+     * This function counts the matched movies of every genre and language.
+     * The counts of a facet apply all filters except the filter of that facet, so they show what another choice of it would return.
+     * They are counted over the bitmaps without building any list of movies.
+     *
+     * @param filters normalized query and filters, an empty query matches all movies
+     * @return number of matched movies and facet counts, or null if the index is not built
+     */
+    public SearchFacetsResponse facets(SearchFilters filters) {
+        var current = snapshot;
+        if (current == null)
+            return null;
+        var matched = match(current, filters);
+        var genreMask = filters.genres() == null ? null
+                : Bitmap.union(filters.genres().stream().map(current.genres()::get).toList());
+        var languageMask = filters.languages() == null ? null
+                : Bitmap.union(filters.languages().stream().map(current.languages()::get).toList());
+
+        var genres = new EnumMap<Genre, Long>(Genre.class);
+        current.genres().forEach((genre, bitmap) -> genres.put(genre, (long) Bitmap.andCardinality(matched, languageMask, bitmap)));
+        var languages = new EnumMap<Language, Long>(Language.class);
+        current.languages().forEach((language, bitmap) -> languages.put(language, (long) Bitmap.andCardinality(matched, genreMask, bitmap)));
+        return new SearchFacetsResponse(Bitmap.andCardinality(matched, genreMask, languageMask), genres, languages);
+    }
+
+    /**
+     * It returns the ids of the movies which match the query, release date and rating filters.
+     */
+    private static Bitmap match(Snapshot current, SearchFilters filters) {
+        var query = filters.query() == null ? "" : filters.query();
+        // a fuzzy query which has no words is matched as a normal query
+        var fuzzyMatched = filters.fuzzy() && !query.isEmpty() ? current.fuzzyTokens().match(query) : null;
+        Bitmap matched;
+        if (query.isEmpty()) {
+            matched = current.all().copy();
+        } else if (fuzzyMatched != null) {
+            matched = fuzzyMatched;
+        } else {
+            var ids = query.length() <= GRAM_SIZE
+                    ? current.postings().get(query)
+                    : intersect(current, grams(query, GRAM_SIZE));
+            if (ids == null)
+                return new Bitmap();
+            matched = Bitmap.fromIds(ids);
+        }
+
+        // grams of a long query can match separately, so every candidate is verified by its title
+        boolean verify = fuzzyMatched == null && query.length() > GRAM_SIZE;
+        if (verify || filters.hasRangeFilters())
+            matched.removeIf(id -> {
+                var movie = current.movies().get(id);
+                return movie == null
+                        || (verify && !movie.normalizedTitle().contains(query))
+                        || !filters.matchesRangeFilters(movie);
+            });
+        return matched;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.removed())
+            remove(event.movie().getId());
+        else
+            put(IndexedMovie.fromMovieEntity(event.movie()));
+    }
+
+    /**
+     * Only the ratings of the indexed movies are replaced, their titles are not indexed again.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieRatingsChanged(MovieRatingsChangedEvent event) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            for (var movie : event.movies())
+                current.movies().computeIfPresent(movie.id(), (id, old) -> new IndexedMovie(id, old.normalizedTitle(), old.releaseDate(),
+                        movie.ratingScore(), old.genre(), old.language()));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It adds a movie to the index or updates the indexed one.
+     *
+     * @param movie new or changed movie
+     */
+    public void put(IndexedMovie movie) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            var old = current.movies().get(movie.id());
+            if (old == null || !old.normalizedTitle().equals(movie.normalizedTitle())) {
+                var oldGrams = old == null ? Set.<String>of() : grams(old.normalizedTitle(), 1);
+                var newGrams = grams(movie.normalizedTitle(), 1);
+                newGrams.stream()
+                        .filter(gram -> !oldGrams.contains(gram))
+                        .forEach(gram -> current.postings().compute(gram, (k, ids) -> insert(ids, movie.id())));
+                oldGrams.stream()
+                        .filter(gram -> !newGrams.contains(gram))
+                        .forEach(gram -> current.postings().computeIfPresent(gram, (k, ids) -> delete(ids, movie.id())));
+                if (old != null)
+                    current.fuzzyTokens().remove(old.id(), old.normalizedTitle());
+                current.fuzzyTokens().add(movie.id(), movie.normalizedTitle());
+            }
+            current.movies().put(movie.id(), movie);
+            if (old == null || old.genre() != movie.genre() || old.language() != movie.language())
+                snapshot = withAttributes(current, old, movie);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It removes a movie from the index.
+     *
+     * @param id movie id
+     */
+    public void remove(int id) {
+        writeLock.lock();
+        try {
+            var current = snapshot;
+            if (current == null)
+                return;
+            var old = current.movies().remove(id);
+            if (old != null) {
+                grams(old.normalizedTitle(), 1)
+                        .forEach(gram -> current.postings().computeIfPresent(gram, (k, ids) -> delete(ids, id)));
+                current.fuzzyTokens().remove(id, old.normalizedTitle());
+                snapshot = withAttributes(current, old, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * It returns all distinct grams of the text which their length is between `minLength` and `GRAM_SIZE`.
+     */
+    static Set<String> grams(String text, int minLength) {
+        var grams = new HashSet<String>();
+        for (int length = minLength; length <= GRAM_SIZE; length++)
+            for (int i = 0; i + length <= text.length(); i++)
+                grams.add(text.substring(i, i + length));
+        return grams;
+    }
+
+    private static <E extends Enum<E>> EnumMap<E, Bitmap> newBitmaps(Class<E> type) {
+        var bitmaps = new EnumMap<E, Bitmap>(type);
+        for (var constant : type.getEnumConstants())
+            bitmaps.put(constant, new Bitmap());
+        return bitmaps;
+    }
+
+    private static void setAttributes(Map<Genre, Bitmap> genres, Map<Language, Bitmap> languages, IndexedMovie movie) {
+        if (movie.genre() != null)
+            genres.get(movie.genre()).set(movie.id());
+        if (movie.language() != null)
+            languages.get(movie.language()).set(movie.id());
+    }
+
+    /**
+     * It returns a snapshot whose bitmaps show the new attributes of a movie instead of the old ones.
+     * Only the changed bitmaps are copied, the published ones are never changed.
+     *
+     * @param old   indexed movie, or null if it is new
+     * @param movie changed movie, or null if it is removed
+     */
+    private static Snapshot withAttributes(Snapshot current, IndexedMovie old, IndexedMovie movie) {
+        var all = current.all();
+        if (movie == null || !all.get(movie.id())) {
+            all = all.copy();
+            if (movie == null)
+                all.clear(old.id());
+            else
+                all.set(movie.id());
+        }
+        var genres = new EnumMap<>(current.genres());
+        var languages = new EnumMap<>(current.languages());
+        if (old != null) {
+            changeBit(genres, old.genre(), old.id(), false);
+            changeBit(languages, old.language(), old.id(), false);
+        }
+        if (movie != null) {
+            changeBit(genres, movie.genre(), movie.id(), true);
+            changeBit(languages, movie.language(), movie.id(), true);
+        }
+        return new Snapshot(current.postings(), current.movies(), all, genres, languages, current.fuzzyTokens());
+    }
+
+    private static <E extends Enum<E>> void changeBit(Map<E, Bitmap> bitmaps, E key, int id, boolean value) {
+        if (key == null)
+            return;
+        var bitmap = bitmaps.get(key).copy();
+        if (value)
+            bitmap.set(id);
+        else
+            bitmap.clear(id);
+        bitmaps.put(key, bitmap);
+    }
+
+    private static int[] intersect(Snapshot snapshot, Set<String> grams) {
+        var postingLists = new ArrayList<int[]>(grams.size());
+        for (String gram : grams) {
+            var ids = snapshot.postings().get(gram);
+            if (ids == null)
+                return null;
+            postingLists.add(ids);
+        }
+        // intersecting from the shortest list keeps the intermediate results small
+        postingLists.sort(Comparator.comparingInt(ids -> ids.length));
+        var result = postingLists.get(0);
+        for (int i = 1; i < postingLists.size() && result.length > 0; i++)
+            result = intersect(result, postingLists.get(i));
+        return result;
+    }
+
+    private static int[] intersect(int[] first, int[] second) {
+        var result = new int[Math.min(first.length, second.length)];
+        int i = 0, j = 0, size = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        if (ids == null)
+            return new int[]{id};
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0)
+            return ids;
+        position = -position - 1;
+        var result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0)
+            return ids;
+        if (ids.length == 1)
+            return null;
+        var result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+
+    /**
+     * Posting lists and movies are replaced one by one under the write lock, so a concurrent query may see a change partially,
+     * like a query which runs while the change is committed. Bitmaps are never changed in place,
+     * a change of the genre, language or existence of a movie publishes a new snapshot with copies of the changed bitmaps.
+     */
+    private record Snapshot(
+            Map<String, int[]> postings,
+            Map<Integer, IndexedMovie> movies,
+            Bitmap all,
+            Map<Genre, Bitmap> genres,
+            Map<Language, Bitmap> languages,
+            FuzzyTokenIndex fuzzyTokens
+    ) {
+    }
+
+    static class IntArrayBuilder {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
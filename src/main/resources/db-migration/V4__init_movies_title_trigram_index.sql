@@ -0,0 +1,5 @@
+-- Enable trigram matching, so `ilike '%query%'` on titles can use an index instead of a sequential scan
+create extension if not exists pg_trgm;
+
+create index if not exists movies_title_trgm_idx
+    on movies using gin (title gin_trgm_ops);
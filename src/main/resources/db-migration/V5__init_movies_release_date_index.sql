@@ -0,0 +1,3 @@
+-- B-tree index for release date range filters. rating_score is the second column, so the minimum rating filter is checked inside the index too
+create index if not exists movies_release_date_rating_score_idx
+    on movies (release_date, rating_score);
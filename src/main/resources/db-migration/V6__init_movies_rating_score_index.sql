@@ -0,0 +1,3 @@
+-- Index in the popular movies order, so keyset pages start by an index range scan at the cursor
+create index if not exists movies_rating_score_id_idx
+    on movies (rating_score desc, id desc);
@@ -0,0 +1,4 @@
+-- Rate limit quota of each api key, the default quota of the application settings is used when they are null
+alter table api_keys
+    add column if not exists requests_per_second integer,
+    add column if not exists burst               integer;
@@ -0,0 +1,6 @@
+-- Row version of movies, which is used for ETags and Last-Modified headers and the incremental export
+alter table movies
+    add column if not exists version    bigint      default 0     not null,
+    add column if not exists updated_at timestamptz default now() not null;
+
+create index if not exists movies_updated_at_idx on movies (updated_at);
@@ -0,0 +1,6 @@
+-- A movie is identified by its title, release date and genre, bulk ingestion upserts movies by this key
+create unique index if not exists movies_natural_key_idx on movies (title, release_date, genres);
+
+-- The initial data is inserted with explicit ids, so the sequence starts after them
+select setval(pg_get_serial_sequence('movies', 'id'), coalesce(max(id), 0) + 1, false)
+from movies;
@@ -0,0 +1,24 @@
+package sample.mrezaei.movies.configurations;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.sql.DataSource;
+
+public class PlatformThreadsLoadIntegrationTests extends ThreadingLoadIntegrationTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void testLoad_platformThreads_reportThroughputAndP99(TestReporter testReporter) throws Exception {
+        Assertions.assertFalse(dataSource instanceof ConcurrencyLimitedDataSource);
+
+        var result = runLoad();
+
+        testReporter.publishEntry("platform threads", result.toString());
+        Assertions.assertTrue(result.throughput() > 0);
+    }
+}
@@ -0,0 +1,96 @@
+package sample.mrezaei.movies.configurations;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the same load on the database bound `popular` API for both threading modes.
+ * The connection pool is smaller than the number of concurrent clients, so requests queue for connections.
+ * Its subclasses start the application with platform or virtual threads and report throughput and p99 latency.
+ * They are benchmarks rather than tests, so they only run by the `load-tests` maven profile.
+ */
+@Tag("load")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "movies.rate-limit.enabled=false",
+        "movies.cache.popular-movies.maximum-size=0",
+        "movies.http.pre-serialized-responses=false",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+public abstract class ThreadingLoadIntegrationTests {
+    private static final int WARM_UP_REQUESTS = 2_000;
+    private static final int REQUESTS = 2_000;
+    private static final int CONCURRENT_CLIENTS = 300;
+
+    @LocalServerPort
+    private int port;
+
+    /**
+     * It sends the requests once to warm up the JIT and the pools, then it measures the same load again.
+     * Both modes run in the same JVM, so without warming up the first one would be measured with cold code.
+     */
+    protected LoadResult runLoad() throws Exception {
+        sendRequests(WARM_UP_REQUESTS);
+        return sendRequests(REQUESTS);
+    }
+
+    private LoadResult sendRequests(int requests) throws Exception {
+        var latencies = new long[requests];
+        var responses = new ArrayList<CompletableFuture<Integer>>(requests);
+        var clients = new Semaphore(CONCURRENT_CLIENTS);
+        // the clients are asynchronous and use a few threads, so they do not take the cpu from the server threads
+        try (var httpClient = HttpClient.newHttpClient()) {
+            var start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                var index = i;
+                var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/movies/popular?page=" + (i % 3 + 1) + "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924")).build();
+                clients.acquire();
+                var requestStart = System.nanoTime();
+                responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(response -> {
+                            latencies[index] = System.nanoTime() - requestStart;
+                            return response.statusCode();
+                        })
+                        .whenComplete((statusCode, e) -> clients.release()));
+            }
+            for (var response : responses)
+                Assertions.assertEquals(200, response.get(1, TimeUnit.MINUTES));
+            var elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new LoadResult(
+                    requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsed,
+                    TimeUnit.NANOSECONDS.toMicros(latencies[(int) Math.ceil(requests * 0.99) - 1]) / 1000.0
+            );
+        }
+    }
+
+    /**
+     * @param throughput   requests per second
+     * @param p99LatencyMs 99th percentile of request latency in milliseconds
+     */
+    protected record LoadResult(
+            double throughput,
+            double p99LatencyMs
+    ) {
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p99 %.1f ms", throughput, p99LatencyMs);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package sample.mrezaei.movies.configurations;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "movies.rate-limit.enabled=false",
+        "spring.datasource.hikari.maximum-pool-size=4"
+})
+public class VirtualThreadsIntegrationTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void testRequests_virtualThreads_expectServedByVirtualThreadExecutor() throws Exception {
+        var webServer = Assertions.assertInstanceOf(TomcatWebServer.class, applicationContext.getWebServer());
+        Assertions.assertInstanceOf(VirtualThreadExecutor.class, webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+
+        var responses = new ArrayList<CompletableFuture<HttpResponse<Void>>>();
+        try (var httpClient = HttpClient.newHttpClient()) {
+            for (int i = 0; i < 20; i++)
+                responses.add(httpClient.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                                + "/movies/popular?page=" + (i % 3 + 1) + "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924")).build(),
+                        HttpResponse.BodyHandlers.discarding()));
+            for (var response : responses)
+                Assertions.assertEquals(200, response.get(1, TimeUnit.MINUTES).statusCode());
+        }
+    }
+
+    @Test
+    public void testGetConnection_limitReached_expectCallerWaitsForClosedConnection() throws Exception {
+        var limitedDataSource = Assertions.assertInstanceOf(ConcurrencyLimitedDataSource.class, dataSource);
+        Assertions.assertEquals(4, limitedDataSource.getMaxConcurrency());
+
+        var connections = new ArrayList<Connection>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++)
+                connections.add(limitedDataSource.getConnection());
+            var waitingConnection = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return limitedDataSource.getConnection();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, executor);
+
+            // the caller over the limit is queued until a connection is closed
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (limitedDataSource.getQueueLength() == 0 && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            Assertions.assertTrue(limitedDataSource.getQueueLength() > 0);
+            Assertions.assertFalse(waitingConnection.isDone());
+
+            connections.removeFirst().close();
+            connections.add(waitingConnection.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, limitedDataSource.getAvailablePermits());
+        } finally {
+            for (var connection : connections)
+                connection.close();
+        }
+    }
+}
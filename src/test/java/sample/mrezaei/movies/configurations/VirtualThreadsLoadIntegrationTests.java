@@ -0,0 +1,33 @@
+package sample.mrezaei.movies.configurations;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+public class VirtualThreadsLoadIntegrationTests extends ThreadingLoadIntegrationTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void testLoad_virtualThreads_reportThroughputAndP99(TestReporter testReporter) throws Exception {
+        var limitedDataSource = Assertions.assertInstanceOf(ConcurrencyLimitedDataSource.class, dataSource);
+        Assertions.assertEquals(4, limitedDataSource.getMaxConcurrency());
+
+        var result = runLoad();
+
+        testReporter.publishEntry("virtual threads", result.toString());
+        Assertions.assertTrue(result.throughput() > 0);
+        // every permit is returned when the connections are closed, a scheduled refresh may still hold one for a moment
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limitedDataSource.getAvailablePermits() < 4 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Assertions.assertEquals(4, limitedDataSource.getAvailablePermits());
+    }
+}
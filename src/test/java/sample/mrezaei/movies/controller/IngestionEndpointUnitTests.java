@@ -0,0 +1,67 @@
+package sample.mrezaei.movies.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.services.ingestion.ImportFormat;
+import sample.mrezaei.movies.services.ingestion.ImportReport;
+import sample.mrezaei.movies.services.ingestion.MoviesImportService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class IngestionEndpointUnitTests {
+
+    @Mock
+    private MoviesImportService moviesImportService;
+
+    @TempDir
+    private Path root;
+
+    private IngestionEndpoint ingestionEndpoint;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        var directory = Files.createDirectory(root.resolve("ingestion"));
+        Files.writeString(directory.resolve("movies.csv"), "title\n");
+        Files.writeString(root.resolve("secret.csv"), "title\n");
+        var moviesProperties = new MoviesProperties();
+        moviesProperties.getIngestion().setDirectory(directory.toString());
+        ingestionEndpoint = new IngestionEndpoint(moviesImportService, moviesProperties);
+    }
+
+    @Test
+    public void testIngest_fileOfDirectory_expectImported() throws Exception {
+        var report = new ImportReport(1, 1, 0, List.of(), Duration.ZERO, 1);
+        Mockito.when(moviesImportService.importMovies(Mockito.any(), Mockito.eq(ImportFormat.CSV))).thenReturn(report);
+
+        Assertions.assertSame(report, ingestionEndpoint.ingest("movies.csv"));
+    }
+
+    @Test
+    public void testIngest_fileOutOfDirectory_expectRejected() throws Exception {
+        Assertions.assertThrows(InvalidEndpointRequestException.class, () -> ingestionEndpoint.ingest("../secret.csv"));
+        Assertions.assertThrows(InvalidEndpointRequestException.class, () -> ingestionEndpoint.ingest(root.resolve("secret.csv").toString()));
+        Assertions.assertThrows(InvalidEndpointRequestException.class, () -> ingestionEndpoint.ingest("missing.csv"));
+        Assertions.assertThrows(InvalidEndpointRequestException.class, () -> ingestionEndpoint.ingest("."));
+
+        Mockito.verifyNoInteractions(moviesImportService);
+    }
+
+    @Test
+    public void testIngest_linkOutOfDirectory_expectRejected() throws Exception {
+        Files.createSymbolicLink(root.resolve("ingestion").resolve("link.csv"), root.resolve("secret.csv"));
+
+        Assertions.assertThrows(InvalidEndpointRequestException.class, () -> ingestionEndpoint.ingest("link.csv"));
+        Mockito.verifyNoInteractions(moviesImportService);
+    }
+}
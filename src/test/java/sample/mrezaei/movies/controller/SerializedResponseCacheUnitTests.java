@@ -0,0 +1,142 @@
+package sample.mrezaei.movies.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.services.CatalogueStatisticsService;
+import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MoviesPage;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+public class SerializedResponseCacheUnitTests {
+
+    @Mock
+    private CatalogueStatisticsService catalogueStatisticsService;
+
+    private SerializedResponseCache serializedResponseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        Mockito.when(catalogueStatisticsService.getLastModified()).thenReturn(Instant.ofEpochSecond(1000));
+        serializedResponseCache = new SerializedResponseCache(new MoviesProperties(), objectMapper, catalogueStatisticsService);
+    }
+
+    @Test
+    public void testGet_repeatedKey_expectLoadedOnce() {
+        var loads = new AtomicInteger();
+        var first = serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 5));
+        var second = serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 5));
+
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals("cursor", first.nextCursor());
+    }
+
+    @Test
+    public void testGet_catalogueChanged_expectLoadedAgain() {
+        var loads = new AtomicInteger();
+        serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 5));
+
+        //another instance changed the catalogue
+        Mockito.when(catalogueStatisticsService.getLastModified()).thenReturn(Instant.ofEpochSecond(2000));
+        serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 5));
+        Assertions.assertEquals(2, loads.get());
+
+        //this instance changed a movie
+        serializedResponseCache.onMovieChanged(new MovieChangedEvent(null, false));
+        serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 5));
+        Assertions.assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testGet_ratingsChanged_expectOnlyChangedPagesLoadedAgain() {
+        var loads = new AtomicInteger();
+        serializedResponseCache.get(List.of("search", 1), false, () -> loadPage(loads, 5));
+        serializedResponseCache.get(List.of("search", 2), false, () -> loadPage(loads, 2));
+        serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 2));
+        Assertions.assertEquals(3, loads.get());
+
+        // the catalogue version advances by the flushed ratings of movie 5
+        Mockito.when(catalogueStatisticsService.getLastModified()).thenReturn(Instant.ofEpochSecond(2000));
+        serializedResponseCache.onMovieRatingsChanged(new MovieRatingsChangedEvent(List.of(
+                new MovieRating(5, "Movie 5", LocalDate.of(2020, 1, 1), null, 8.0, 10, Genre.Drama, Language.English, Instant.ofEpochSecond(2000)))));
+
+        serializedResponseCache.get(List.of("search", 1), false, () -> loadPage(loads, 5));
+        Assertions.assertEquals(4, loads.get());
+        serializedResponseCache.get(List.of("search", 2), false, () -> loadPage(loads, 2));
+        Assertions.assertEquals(4, loads.get());
+        serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(loads, 2));
+        Assertions.assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void testToResponse_acceptGzip_expectCompressedSameJson() throws Exception {
+        var page = serializedResponseCache.get(List.of("popular", 1), true, () -> loadPage(new AtomicInteger(), 50));
+
+        var identity = page.toResponse(null, CacheControl.empty());
+        var compressed = page.toResponse("br, gzip;q=0.8", CacheControl.empty());
+
+        Assertions.assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), compressed.getHeaders().getVary());
+        Assertions.assertTrue(compressed.getBody().length < identity.getBody().length);
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+            Assertions.assertArrayEquals(identity.getBody(), input.readAllBytes());
+        }
+        Assertions.assertEquals(objectMapper.writeValueAsString(loadPage(new AtomicInteger(), 50).movies()), new String(identity.getBody()));
+    }
+
+    @Test
+    public void testToResponse_smallPage_expectNotCompressed() {
+        var page = serializedResponseCache.get(List.of("popular", 3), true, () -> loadPage(new AtomicInteger(), 0));
+
+        var response = page.toResponse("gzip", CacheControl.empty());
+        Assertions.assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals("[]", new String(response.getBody()));
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        Assertions.assertTrue(SerializedResponseCache.acceptsGzip("gzip, deflate, br"));
+        Assertions.assertTrue(SerializedResponseCache.acceptsGzip("deflate, GZIP;q=0.5"));
+        Assertions.assertTrue(SerializedResponseCache.acceptsGzip("*"));
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip("gzip;q=0"));
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip("gzip;q=0.000, *"));
+        // an explicit gzip entry overrides the wildcard in any order
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip("*;q=1, gzip;q=0"));
+        Assertions.assertTrue(SerializedResponseCache.acceptsGzip("*;q=0, gzip"));
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip("*;q=0, br"));
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip("identity"));
+        Assertions.assertFalse(SerializedResponseCache.acceptsGzip(null));
+    }
+
+    private static MoviesPage loadPage(AtomicInteger loads, int size) {
+        loads.incrementAndGet();
+        var movies = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new MovieListResponse(id, "Movie " + id, "2020-01-01", "https://example.com/" + id + ".jpg", 7.5))
+                .toList();
+        return new MoviesPage(movies, "cursor", null);
+    }
+}
@@ -0,0 +1,94 @@
+package sample.mrezaei.movies.data.specifications;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * These tests explain the SQL which is generated from the Specifications,
+ * so a change in a predicate which makes Postgres fall back to a sequential scan fails here.
+ * Sequential scans are disabled in the test transaction, because the sample table is too small to make an index scan the cheapest plan.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "sample.mrezaei.movies.data.specifications.SqlCapturingStatementInspector")
+public class MovieSpecificationIntegrationTests {
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional
+    public void testSearchByTitleQuery_expectTrigramIndexIsUsed() {
+        moviesRepository.findAll(MovieSpecification.searchByTitleQuery("Dark"));
+        var plan = explainLastQuery("'%Dark%'");
+
+        Assertions.assertTrue(plan.contains("movies_title_trgm_idx"), plan);
+        Assertions.assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @Transactional
+    public void testFilterByReleaseDate_expectReleaseDateIndexRangeScan() {
+        moviesRepository.findAll(MovieSpecification.filterByReleaseDateFrom(LocalDate.of(2008, 1, 1))
+                .and(MovieSpecification.filterByReleaseDateTo(LocalDate.of(2014, 12, 31)))
+                .and(MovieSpecification.filterByMinimumRating(8.0)));
+        var plan = explainLastQuery("'2008-01-01'", "'2014-12-31'", "8.0");
+
+        Assertions.assertTrue(plan.contains("movies_release_date_rating_score_idx"), plan);
+        Assertions.assertTrue(plan.contains("Index Cond: ((release_date >= "), plan);
+        Assertions.assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @Transactional
+    public void testFilterAfterKeyset_expectPopularIndexRangeScan() {
+        moviesRepository.findSummaries(MovieSpecification.filterAfterKeyset("ratingScore", Sort.Direction.DESC, 8.1, 50),
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "ratingScore", "id")));
+        var plan = explainLastQuery("8.1", "8.1", "50", "0", "50");
+
+        Assertions.assertTrue(plan.contains("movies_rating_score_id_idx"), plan);
+        Assertions.assertTrue(plan.contains("Index Cond: (rating_score <= "), plan);
+    }
+
+    /**
+     * It prepares the last generated statement with the given parameter values and returns its plan
+     */
+    private String explainLastQuery(String... parameters) {
+        var sql = SqlCapturingStatementInspector.getLastSql();
+        Assertions.assertNotNull(sql);
+        var parameterIndex = 0;
+        var preparedSql = new StringBuilder();
+        for (char c : sql.toCharArray()) {
+            if (c == '?')
+                preparedSql.append('$').append(++parameterIndex);
+            else
+                preparedSql.append(c);
+        }
+        Assertions.assertEquals(parameters.length, parameterIndex, sql);
+
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        jdbcTemplate.execute("prepare explained_query as " + preparedSql);
+        try {
+            List<String> plan = jdbcTemplate.queryForList(
+                    "explain execute explained_query(" + String.join(", ", parameters) + ")", String.class);
+            return String.join("\n", plan);
+        } finally {
+            jdbcTemplate.execute("deallocate explained_query");
+        }
+    }
+}
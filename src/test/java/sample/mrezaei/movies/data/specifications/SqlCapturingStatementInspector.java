@@ -0,0 +1,20 @@
+package sample.mrezaei.movies.data.specifications;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * This Hibernate statement inspector keeps the last generated SQL of the current thread, so tests can explain it.
+ */
+public class SqlCapturingStatementInspector implements StatementInspector {
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        LAST_SQL.set(sql);
+        return sql;
+    }
+
+    public static String getLastSql() {
+        return LAST_SQL.get();
+    }
+}
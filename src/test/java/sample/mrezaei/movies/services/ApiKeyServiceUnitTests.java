@@ -0,0 +1,97 @@
+package sample.mrezaei.movies.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.ApiKeyEntity;
+import sample.mrezaei.movies.data.repositories.ApiKeyRepository;
+import sample.mrezaei.movies.services.model.ApiKeyQuota;
+
+import java.util.List;
+
+public class ApiKeyServiceUnitTests {
+    @InjectMocks
+    private ApiKeyService apiKeyService;
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+
+    @Spy
+    private MoviesProperties moviesProperties = new MoviesProperties();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testIsValidApiKey_loadedKeys() {
+        Mockito.doReturn(List.of(apiKey(1, "first-key"), apiKey(2, "second-key"))).when(apiKeyRepository).findAll();
+
+        apiKeyService.initCache();
+
+        Assertions.assertTrue(apiKeyService.isValidApiKey("first-key"));
+        Assertions.assertTrue(apiKeyService.isValidApiKey("second-key"));
+        Assertions.assertFalse(apiKeyService.isValidApiKey("first-ke"));
+        Assertions.assertFalse(apiKeyService.isValidApiKey(""));
+        Assertions.assertFalse(apiKeyService.isValidApiKey(null));
+    }
+
+    @Test
+    public void testRefresh_newKey_expectOnlyNewKeysLoaded() {
+        Mockito.doReturn(List.of(apiKey(1, "first-key"), apiKey(5, "second-key"))).when(apiKeyRepository).findAll();
+        Mockito.doReturn(List.of(apiKey(6, "new-key"))).when(apiKeyRepository).findByIdGreaterThan(5);
+        apiKeyService.initCache();
+
+        Assertions.assertFalse(apiKeyService.isValidApiKey("new-key"));
+        apiKeyService.refresh();
+
+        Assertions.assertTrue(apiKeyService.isValidApiKey("new-key"));
+        Assertions.assertTrue(apiKeyService.isValidApiKey("first-key"));
+        Mockito.verify(apiKeyRepository, Mockito.times(1)).findAll();
+
+        apiKeyService.refresh();
+        Mockito.verify(apiKeyRepository).findByIdGreaterThan(6);
+    }
+
+    @Test
+    public void testReload_removedKey_expectInvalid() {
+        Mockito.doReturn(List.of(apiKey(1, "first-key"), apiKey(2, "second-key")))
+                .doReturn(List.of(apiKey(2, "second-key")))
+                .when(apiKeyRepository).findAll();
+        apiKeyService.initCache();
+
+        apiKeyService.reload();
+
+        Assertions.assertFalse(apiKeyService.isValidApiKey("first-key"));
+        Assertions.assertTrue(apiKeyService.isValidApiKey("second-key"));
+    }
+
+    @Test
+    public void testFindQuota_keyWithoutQuota_expectDefaultQuota() {
+        var limitedKey = apiKey(2, "limited-key");
+        limitedKey.setRequestsPerSecond(5);
+        limitedKey.setBurst(10);
+        Mockito.doReturn(List.of(apiKey(1, "default-key"), limitedKey)).when(apiKeyRepository).findAll();
+
+        apiKeyService.initCache();
+
+        Assertions.assertEquals(new ApiKeyQuota(1, 20, 40), apiKeyService.findQuota("default-key"));
+        Assertions.assertEquals(new ApiKeyQuota(2, 5, 10), apiKeyService.findQuota("limited-key"));
+        Assertions.assertNull(apiKeyService.findQuota("unknown-key"));
+    }
+
+    private static ApiKeyEntity apiKey(int id, String key) {
+        var apiKeyEntity = new ApiKeyEntity();
+        apiKeyEntity.setId(id);
+        apiKeyEntity.setApiKey(key);
+        apiKeyEntity.setUsername("test");
+        return apiKeyEntity;
+    }
+}
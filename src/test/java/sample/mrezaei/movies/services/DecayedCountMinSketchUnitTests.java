@@ -0,0 +1,41 @@
+package sample.mrezaei.movies.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DecayedCountMinSketchUnitTests {
+
+    @Test
+    public void testEstimate_expectNeverLessThanCount() {
+        var sketch = new DecayedCountMinSketch(1, 64, 0.5);
+        for (int id = 1; id <= 1_000; id++)
+            for (int i = 0; i < id % 7; i++)
+                sketch.increment(id);
+
+        Assertions.assertEquals(64, sketch.width());
+        for (int id = 1; id <= 1_000; id++)
+            Assertions.assertTrue(sketch.estimate(id) >= id % 7);
+        Assertions.assertEquals(0, new DecayedCountMinSketch(1, 64, 0.5).estimate(1));
+    }
+
+    @Test
+    public void testRotate_expectOlderSlotsDecayedAndOldestForgotten() {
+        var sketch = new DecayedCountMinSketch(3, 1024, 0.5);
+        for (int i = 0; i < 8; i++)
+            sketch.increment(1);
+        Assertions.assertEquals(8, sketch.estimate(1));
+
+        sketch.rotate();
+        sketch.increment(1);
+        Assertions.assertEquals(5, sketch.estimate(1));
+
+        sketch.rotate();
+        Assertions.assertEquals(2.5, sketch.estimate(1));
+
+        // the first slot is reused and its views are forgotten
+        sketch.rotate();
+        Assertions.assertEquals(0.25, sketch.estimate(1));
+        sketch.rotate();
+        Assertions.assertEquals(0, sketch.estimate(1));
+    }
+}
@@ -1,5 +1,7 @@
 package sample.mrezaei.movies.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Assertions;
@@ -8,13 +10,46 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import sample.mrezaei.movies.configurations.AccessControlConfiguration;
+import sample.mrezaei.movies.configurations.CacheConfiguration;
+import sample.mrezaei.movies.controller.MoviesController;
+import sample.mrezaei.movies.controller.SerializedResponseCache;
 import sample.mrezaei.movies.data.entities.Genre;
 import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.data.specifications.MovieSpecification;
 import sample.mrezaei.movies.services.model.MovieDetailsResponse;
+import sample.mrezaei.movies.services.model.MovieExportResponse;
 import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MovieRatingRequest;
+import sample.mrezaei.movies.services.model.MovieRatingResponse;
+import sample.mrezaei.movies.services.model.MovieSuggestionResponse;
+import sample.mrezaei.movies.services.model.MoviesBatchResponse;
+import sample.mrezaei.movies.services.model.SearchFacetsResponse;
+import sample.mrezaei.movies.services.search.SearchResultCache;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -23,6 +58,21 @@ public class MoviesServiceIntegrationTests {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MoviesRepository moviesRepository;
+
+    @Autowired
+    private RatingsService ratingsService;
+
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
 
     @Test
@@ -40,6 +90,20 @@ public class MoviesServiceIntegrationTests {
         Assertions.assertEquals(120, movie.runtime());
     }
 
+    @Test
+    public void testGetMovieById_repeatedRequest_expectedToBeServedByCache() {
+        var cache = (CaffeineCache) cacheManager.getCache(CacheConfiguration.MOVIE_DETAILS_CACHE);
+        Assertions.assertNotNull(cache);
+        cache.clear();
+        var hitCount = cache.getNativeCache().stats().hitCount();
+
+        var movie = restTemplate.getForObject("/movies/2?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+        var cachedMovie = restTemplate.getForObject("/movies/2?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+
+        Assertions.assertEquals(movie, cachedMovie);
+        Assertions.assertEquals(hitCount + 1, cache.getNativeCache().stats().hitCount());
+    }
+
     @Test
     public void testGetMovieById_notExistingMovie_expectProperErrorCode() {
         var movie = restTemplate.getForEntity("/movies/1000?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
@@ -52,6 +116,48 @@ public class MoviesServiceIntegrationTests {
         Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, movie.getStatusCode().value());
     }
 
+    @Test
+    public void testGetMovieById_matchingETag_expectNotModified() {
+        var movie = restTemplate.getForEntity("/movies/1?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+        var eTag = movie.getHeaders().getETag();
+        Assertions.assertNotNull(eTag);
+        Assertions.assertNotNull(movie.getHeaders().getCacheControl());
+
+        var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        var notModified = restTemplate.exchange("/movies/1?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getStatusCode().value());
+        Assertions.assertNull(notModified.getBody());
+
+        headers.setIfNoneMatch("\"-1\"");
+        var modified = restTemplate.exchange("/movies/1?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                HttpMethod.GET, new HttpEntity<>(headers), MovieDetailsResponse.class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, modified.getStatusCode().value());
+        Assertions.assertEquals(movie.getBody(), modified.getBody());
+    }
+
+    @Test
+    public void testGetMoviesByIds_expectRequestOrderAndMissingIds() {
+        var batch = restTemplate.getForObject("/movies?ids=3,1,999999,3&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MoviesBatchResponse.class);
+        Assertions.assertNotNull(batch);
+        Assertions.assertEquals(List.of(3, 1), batch.movies().stream().map(MovieDetailsResponse::id).toList());
+        Assertions.assertEquals("Mad Max: Fury Road", batch.movies().get(1).title());
+        Assertions.assertEquals(List.of(999999), batch.missingIds());
+
+        var movie = restTemplate.getForObject("/movies/3?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+        Assertions.assertEquals(movie, batch.movies().get(0));
+    }
+
+    @Test
+    public void testGetMoviesByIds_tooManyIds_expectProperErrorCode() {
+        var ids = IntStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        var batch = restTemplate.getForEntity("/movies?ids=" + ids + "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, batch.getStatusCode().value());
+        batch = restTemplate.getForEntity("/movies?ids=1,x&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, batch.getStatusCode().value());
+    }
+
     @Test
     public void testGetMovieById_unauthorized_expectProperErrorCode() {
         var movie = restTemplate.getForEntity("/movies/1", MovieDetailsResponse.class);
@@ -84,6 +190,69 @@ public class MoviesServiceIntegrationTests {
         }
     }
 
+    @Test
+    public void testGetPopularMovies_byCursor_expectedSameMoviesAsPages() {
+        var firstPage = restTemplate.getForEntity("/movies/popular?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        var cursor = firstPage.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER);
+        Assertions.assertNotNull(cursor);
+
+        var secondPage = restTemplate.getForEntity("/movies/popular?cursor=" + cursor + "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        var secondPageByNumber = restTemplate.getForObject("/movies/popular?page=2&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        Assertions.assertArrayEquals(secondPageByNumber, secondPage.getBody());
+        Assertions.assertNull(secondPage.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testGetPopularMovies_includeTotal_expectedTotalCountHeader() {
+        var movies = restTemplate.getForEntity("/movies/popular?include_total=true&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        Assertions.assertNotNull(movies.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER));
+        Assertions.assertEquals(92, Long.parseLong(movies.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER)), 10);
+    }
+
+    @Test
+    public void testGetPopularMovies_matchingETag_expectNotModified() {
+        var movies = restTemplate.getForEntity("/movies/popular?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        var eTag = movies.getHeaders().getETag();
+        Assertions.assertNotNull(eTag);
+
+        var headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        var notModified = restTemplate.exchange("/movies/popular?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getStatusCode().value());
+        Assertions.assertNull(notModified.getBody());
+
+        //the total count is a part of the version when it is included
+        var withTotal = restTemplate.exchange("/movies/popular?include_total=true&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                HttpMethod.GET, new HttpEntity<>(headers), MovieListResponse[].class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, withTotal.getStatusCode().value());
+    }
+
+    @Test
+    public void testGetPopularMovies_acceptGzip_expectCompressedSameMovies() throws Exception {
+        var identity = restTemplate.getForEntity("/movies/popular?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        var compressed = restTemplate.exchange("/movies/popular?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        Assertions.assertEquals("gzip", compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertTrue(compressed.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+        Assertions.assertEquals(identity.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER),
+                compressed.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER));
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+            Assertions.assertEquals(identity.getBody(), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertTrue(meterRegistry.get("cache.gets").tag("cache", SerializedResponseCache.SERIALIZED_RESPONSES_CACHE)
+                .tag("result", "hit").functionCounter().count() > 0);
+    }
+
+    @Test
+    public void testGetPopularMovies_invalidCursor_expectProperErrorCode() {
+        var movies = restTemplate.getForEntity("/movies/popular?cursor=invalid&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, movies.getStatusCode().value());
+    }
+
     @Test
     public void testGetPopularMovies_notExistsPage_expectedEmptyResult() {
         MovieListResponse[] movies = restTemplate.getForObject("/movies/popular?page=3&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
@@ -305,4 +474,228 @@ public class MoviesServiceIntegrationTests {
             previousRating = movieAverageRating;
         }
     }
+
+    @Test
+    public void testExportMovies_expectOneLinePerMovieByIdOrder() throws Exception {
+        var export = restTemplate.getForEntity("/movies/export?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, export.getStatusCode().value());
+        Assertions.assertTrue(export.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        var lines = export.getBody().split("\n");
+        Assertions.assertTrue(lines.length >= 90);
+        var previousId = 0;
+        for (var line : lines) {
+            Assertions.assertFalse(Character.isWhitespace(line.charAt(0)), "line starts with whitespace: " + line);
+            var movie = objectMapper.readValue(line, MovieExportResponse.class);
+            Assertions.assertTrue(movie.id() > previousId);
+            Assertions.assertNotNull(movie.updatedAt());
+            previousId = movie.id();
+        }
+        var firstMovie = objectMapper.readValue(lines[0], MovieExportResponse.class);
+        Assertions.assertEquals("Mad Max: Fury Road", firstMovie.title());
+    }
+
+    @Test
+    public void testExportMovies_updatedSince_expectOnlyChangedMoviesByChangeTime() throws Exception {
+        var export = restTemplate.getForObject("/movies/export?updated_since=2000-01-01T00:00:00Z&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        var lines = export.split("\n");
+        Assertions.assertTrue(lines.length >= 90);
+        var previousUpdatedAt = Instant.EPOCH;
+        for (var line : lines) {
+            Assertions.assertFalse(Character.isWhitespace(line.charAt(0)), "line starts with whitespace: " + line);
+            var movie = objectMapper.readValue(line, MovieExportResponse.class);
+            Assertions.assertFalse(movie.updatedAt().isBefore(previousUpdatedAt));
+            previousUpdatedAt = movie.updatedAt();
+        }
+
+        var future = restTemplate.getForEntity("/movies/export?updated_since=2999-01-01T00:00:00Z&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, future.getStatusCode().value());
+        Assertions.assertNull(future.getBody());
+
+        var invalid = restTemplate.getForEntity("/movies/export?updated_since=yesterday&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+    }
+
+    @Test
+    public void testSearchMovies_genreAndLanguageFilters_expectSameCountAsFacets() {
+        var facets = restTemplate.getForObject("/movies/search/facets?query=the&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", SearchFacetsResponse.class);
+        Assertions.assertNotNull(facets);
+        Assertions.assertEquals(facets.totalCount(), facets.genres().values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(facets.totalCount(), facets.languages().values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertTrue(facets.genres().get(Genre.Action) > 0);
+
+        var movies = restTemplate.getForEntity("/movies/search?query=the&filter_genre=Action&filter_language=English&include_total=true" +
+                "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        var filteredFacets = restTemplate.getForObject("/movies/search/facets?query=the&filter_genre=Action&filter_language=English" +
+                "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", SearchFacetsResponse.class);
+        Assertions.assertEquals(filteredFacets.totalCount(), Long.parseLong(movies.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER)));
+        Assertions.assertTrue(filteredFacets.totalCount() <= facets.genres().get(Genre.Action));
+        // the genre counts apply only the language filter
+        Assertions.assertEquals(facets.genres().keySet(), filteredFacets.genres().keySet());
+        for (var movie : movies.getBody()) {
+            var details = restTemplate.getForObject("/movies/" + movie.id() + "?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+            Assertions.assertEquals(Genre.Action, details.genre());
+            Assertions.assertEquals(Language.English, details.language());
+        }
+
+        var invalid = restTemplate.getForEntity("/movies/search?query=the&filter_genre=Cartoon&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+    }
+
+    @Test
+    public void testSearchMovies_sortByRelevance_expectTitleAndOverviewMatchesInPages() {
+        var first = restTemplate.getForObject("/movies/search?query=dystopian water&sort_by=relevance&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieListResponse[].class);
+        Assertions.assertEquals(1, first[0].id());
+
+        var story = restTemplate.getForObject("/movies/search?query=story&sort_by=relevance&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieListResponse[].class);
+        Assertions.assertEquals(List.of("Toy Story 3", "Toy Story 3"), Arrays.stream(story).limit(2).map(MovieListResponse::title).toList());
+
+        var ids = new ArrayList<Integer>();
+        String cursor = null;
+        long totalCount = -1;
+        do {
+            var response = restTemplate.getForEntity("/movies/search?query=young&sort_by=relevance&include_total=true" +
+                    (cursor == null ? "" : "&cursor=" + cursor) + "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+            Assertions.assertEquals(HttpServletResponse.SC_OK, response.getStatusCode().value());
+            Arrays.stream(response.getBody()).map(MovieListResponse::id).forEach(ids::add);
+            totalCount = Long.parseLong(response.getHeaders().getFirst(MoviesController.TOTAL_COUNT_HEADER));
+            cursor = response.getHeaders().getFirst(MoviesController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        Assertions.assertTrue(ids.size() > 10);
+        Assertions.assertEquals(totalCount, ids.size());
+        Assertions.assertEquals(ids.size(), Set.copyOf(ids).size());
+
+        var filtered = restTemplate.getForObject("/movies/search?query=young&sort_by=relevance&filter_min_rate=8.5" +
+                "&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        Assertions.assertTrue(filtered.length > 0 && filtered.length < ids.size());
+        Assertions.assertTrue(Arrays.stream(filtered).allMatch(movie -> movie.averageRating() >= 8.5));
+    }
+
+    @Test
+    public void testSearchMovies_fuzzyQuery_expectMatchedWithTypos() {
+        var movies = restTemplate.getForObject("/movies/search?query=lord of the rigns&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieListResponse[].class);
+        Assertions.assertEquals(0, movies.length);
+
+        movies = restTemplate.getForObject("/movies/search?query=lord of the rigns&fuzzy=true&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieListResponse[].class);
+        Assertions.assertEquals(List.of(5, 38), Arrays.stream(movies).map(MovieListResponse::id).toList());
+
+        movies = restTemplate.getForObject("/movies/search?query=intersteler&fuzzy=true&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieListResponse[].class);
+        Assertions.assertEquals(List.of(70), Arrays.stream(movies).map(MovieListResponse::id).toList());
+
+        var facets = restTemplate.getForObject("/movies/search/facets?query=lord of the rigns&fuzzy=true&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                SearchFacetsResponse.class);
+        Assertions.assertEquals(2, facets.totalCount());
+    }
+
+    @Test
+    public void testAutocompleteTitles_expectSameAsLikeQueryOrderedByRating() {
+        var response = restTemplate.getForEntity("/movies/autocomplete?prefix=the&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieSuggestionResponse[].class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, response.getStatusCode().value());
+        var movies = List.of(response.getBody());
+        Assertions.assertFalse(movies.isEmpty());
+        Assertions.assertTrue(movies.size() <= 10);
+        for (int i = 1; i < movies.size(); i++)
+            Assertions.assertTrue(movies.get(i - 1).averageRating() >= movies.get(i).averageRating());
+
+        // the fallback query of a disabled trie returns the same movies
+        var sort = Sort.by(Sort.Order.desc("ratingScore"), Sort.Order.desc("ratingCount"), Sort.Order.asc("id"));
+        var expected = moviesRepository.findSummaries(MovieSpecification.searchByTitleWordPrefix("the"), PageRequest.of(0, 10, sort))
+                .stream().map(MovieSummary::id).toList();
+        Assertions.assertEquals(expected, movies.stream().map(MovieSuggestionResponse::id).toList());
+
+        var limited = restTemplate.getForObject("/movies/autocomplete?prefix=the&limit=2&api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                MovieSuggestionResponse[].class);
+        Assertions.assertEquals(movies.subList(0, 2), List.of(limited));
+
+        var invalid = restTemplate.getForEntity("/movies/autocomplete?prefix=the&limit=100&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+        invalid = restTemplate.getForEntity("/movies/autocomplete?prefix=&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+    }
+
+    @Test
+    public void testGetSearchFacets_withoutQuery_expectWholeCatalogue() {
+        var facets = restTemplate.getForObject("/movies/search/facets?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", SearchFacetsResponse.class);
+        Assertions.assertEquals(92, facets.totalCount());
+    }
+
+    @Test
+    public void testRateMovie_expectAverageAfterFlush() throws Exception {
+        var original = moviesRepository.findById(92).orElseThrow();
+        try {
+            restTemplate.getForObject("/movies/92?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+            var first = restTemplate.postForEntity("/movies/92/ratings?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                    new MovieRatingRequest(10), MovieRatingResponse.class);
+            var second = restTemplate.postForEntity("/movies/92/ratings?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                    new MovieRatingRequest(1), MovieRatingResponse.class).getBody();
+
+            Assertions.assertEquals(HttpServletResponse.SC_ACCEPTED, first.getStatusCode().value());
+            Assertions.assertEquals(original.getRatingCount() + 2, second.ratingCount());
+            var expected = (original.getRatingScore() * original.getRatingCount() + 11) / (original.getRatingCount() + 2);
+            Assertions.assertEquals(expected, second.averageRating(), 1e-9);
+
+            // the details are cached until the flushed ratings are published, which is done by another thread
+            Assertions.assertTrue(ratingsService.flush() >= 1);
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            var movie = restTemplate.getForObject("/movies/92?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+            while (Math.abs(movie.averageRating() - expected) > 1e-9 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+                movie = restTemplate.getForObject("/movies/92?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+            }
+            Assertions.assertEquals(expected, movie.averageRating(), 1e-9);
+            Assertions.assertEquals(original.getRatingCount() + 2, moviesRepository.findById(92).orElseThrow().getRatingCount());
+
+            var invalid = restTemplate.postForEntity("/movies/92/ratings?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                    new MovieRatingRequest(11), String.class);
+            Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+            var notFound = restTemplate.postForEntity("/movies/100000/ratings?api_key=9c7ede34-372e-4744-80bd-0ab59f835924",
+                    new MovieRatingRequest(5), String.class);
+            Assertions.assertEquals(HttpServletResponse.SC_NOT_FOUND, notFound.getStatusCode().value());
+        } finally {
+            var movie = moviesRepository.findById(92).orElseThrow();
+            movie.setRatingScore(original.getRatingScore());
+            movie.setRatingCount(original.getRatingCount());
+            moviesRepository.save(movie);
+        }
+    }
+
+    @Test
+    public void testGetTrendingMovies_expectViewedMovies() {
+        // the views are few enough for the rate limit of the test key
+        for (int i = 0; i < 12; i++)
+            restTemplate.getForObject("/movies/91?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+        restTemplate.getForObject("/movies/100000?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+
+        var trending = restTemplate.getForEntity("/movies/trending?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        Assertions.assertEquals(HttpServletResponse.SC_OK, trending.getStatusCode().value());
+        Assertions.assertTrue(Arrays.stream(trending.getBody()).anyMatch(movie -> movie.id() == 91));
+        Assertions.assertTrue(Arrays.stream(trending.getBody()).noneMatch(movie -> movie.id() == 100000));
+        var limited = restTemplate.getForObject("/movies/trending?limit=1&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieListResponse[].class);
+        Assertions.assertEquals(1, limited.length);
+
+        var invalid = restTemplate.getForEntity("/movies/trending?limit=100&api_key=9c7ede34-372e-4744-80bd-0ab59f835924", String.class);
+        Assertions.assertEquals(HttpServletResponse.SC_BAD_REQUEST, invalid.getStatusCode().value());
+    }
+
+    @Test
+    public void testMetrics_getMovieById_expectBoundedTags() {
+        restTemplate.getForObject("/movies/3?api_key=9c7ede34-372e-4744-80bd-0ab59f835924", MovieDetailsResponse.class);
+        restTemplate.getForEntity("/movies/3?api_key=invalid", MovieDetailsResponse.class);
+
+        //endpoints are tagged by uri template and not by the requested id
+        Assertions.assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/movies/{id}").timer());
+        Assertions.assertTrue(meterRegistry.find("http.server.requests").meters().stream()
+                .noneMatch(meter -> "/movies/3".equals(meter.getId().getTag("uri"))));
+        Assertions.assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("method", "findById").timer());
+        Assertions.assertTrue(meterRegistry.get(AccessControlConfiguration.VALIDATION_TIMER).tag("outcome", "valid").timer().count() > 0);
+        Assertions.assertTrue(meterRegistry.get(AccessControlConfiguration.VALIDATION_TIMER).tag("outcome", "invalid").timer().count() > 0);
+        Assertions.assertNotNull(meterRegistry.find("cache.gets").tag("cache", CacheConfiguration.MOVIE_DETAILS_CACHE).meter());
+        Assertions.assertNotNull(meterRegistry.find("cache.gets").tag("cache", SearchResultCache.SEARCH_RESULTS_CACHE).meter());
+    }
 }
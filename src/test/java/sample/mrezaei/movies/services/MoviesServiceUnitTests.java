@@ -5,20 +5,48 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import sample.mrezaei.movies.configurations.CacheConfiguration;
+import sample.mrezaei.movies.configurations.MoviesProperties;
 import sample.mrezaei.movies.data.entities.Genre;
 import sample.mrezaei.movies.data.entities.Language;
 import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.data.projections.MovieSummary;
+import sample.mrezaei.movies.data.projections.MovieTitle;
 import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.exceptions.InputParamException;
 import sample.mrezaei.movies.exceptions.MovieNotFoundException;
+import sample.mrezaei.movies.services.model.MovieDetailsResponse;
+import sample.mrezaei.movies.services.model.MovieSuggestionResponse;
+import sample.mrezaei.movies.services.model.PageCursor;
 import sample.mrezaei.movies.services.model.SearchMoviesRequest;
+import sample.mrezaei.movies.services.search.FullTextIndex;
+import sample.mrezaei.movies.services.search.IndexedMovie;
+import sample.mrezaei.movies.services.search.SearchFilters;
+import sample.mrezaei.movies.services.search.SearchResultCache;
+import sample.mrezaei.movies.services.search.TitleAutocompleteIndex;
+import sample.mrezaei.movies.services.search.TitleSearchIndex;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
 public class MoviesServiceUnitTests {
     @InjectMocks
@@ -27,11 +55,71 @@ public class MoviesServiceUnitTests {
     @Mock
     private MoviesRepository moviesRepository;
 
+    @Mock
+    private TitleSearchIndex titleSearchIndex;
+
+    @Mock
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    @Mock
+    private FullTextIndex fullTextIndex;
+
+    @Mock
+    private CatalogueStatisticsService catalogueStatisticsService;
+
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(new MoviesProperties());
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfiguration.MOVIE_DETAILS_CACHE);
+
+    @Spy
+    private MoviesProperties moviesProperties = new MoviesProperties();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
     }
 
+    @Test
+    public void testGetMoviesByIds_someCached_expectOneQueryForOthersAndRequestOrder() {
+        var cachedMovie = MovieDetailsResponse.fromMovieEntity(buildMovieEntity(2, "cached movie"));
+        cacheManager.getCache(CacheConfiguration.MOVIE_DETAILS_CACHE).put(2, cachedMovie);
+        Mockito.doReturn(List.of(buildMovieEntity(1, "first movie"), buildMovieEntity(3, "third movie")))
+                .when(moviesRepository).findAllById(List.of(3, 4, 1));
+
+        var batch = moviesService.getMoviesByIds(List.of(3, 2, 4, 1, 3));
+        Assertions.assertEquals(List.of(3, 2, 1), batch.movies().stream().map(MovieDetailsResponse::id).toList());
+        Assertions.assertSame(cachedMovie, batch.movies().get(1));
+        Assertions.assertEquals(List.of(4), batch.missingIds());
+        Mockito.verify(moviesRepository, Mockito.times(1)).findAllById(Mockito.any());
+
+        //loaded movies are cached for the next requests
+        batch = moviesService.getMoviesByIds(List.of(1, 3));
+        Assertions.assertEquals(List.of(1, 3), batch.movies().stream().map(MovieDetailsResponse::id).toList());
+        Mockito.verify(moviesRepository, Mockito.times(1)).findAllById(Mockito.any());
+    }
+
+    @Test
+    public void testGetMoviesByIds_invalidIds_expectException() {
+        moviesProperties.getBatch().setMaxSize(3);
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getMoviesByIds(List.of()));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getMoviesByIds(List.of(1, 2, 3, 4)));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getMoviesByIds(List.of(1, -2)));
+        // repeated ids are counted once
+        Assertions.assertEquals(0, moviesService.getMoviesByIds(List.of(1, 2, 3, 3)).movies().size());
+    }
+
+    private static MovieEntity buildMovieEntity(int id, String title) {
+        return MovieEntity.builder()
+                .id(id)
+                .title(title)
+                .genre(Genre.Drama)
+                .releaseDate(LocalDate.parse("2020-01-01"))
+                .ratingScore(7.0)
+                .build();
+    }
+
     @Test
     public void testGetMovieById_successfullyLoaded() {
         var movieEntity = MovieEntity.builder()
@@ -43,7 +131,7 @@ public class MoviesServiceUnitTests {
                 .ratingCount(10000)
                 .ratingScore(8.1)
                 .language(Language.English)
-                .releaseDate("2025-01-01")
+                .releaseDate(LocalDate.parse("2025-01-01"))
                 .runtimeInMinutes(120)
                 .build();
         Mockito.doReturn(Optional.of(movieEntity)).when(moviesRepository).findById(1);
@@ -67,25 +155,22 @@ public class MoviesServiceUnitTests {
 
     @Test
     public void testPopularMovies_checkOutput() {
-        var movies = new ArrayList<MovieEntity>();
+        var movies = new ArrayList<MovieSummary>();
         for (int i = 0; i < 50; i++) {
-            var movie = MovieEntity.builder()
-                    .id(i + 1)
-                    .title("movie title #" + i)
-                    .genre(Genre.Action)
-                    .overview("This is a good movie #" + i)
-                    .posterUrl("http://movie.test/movie/" + i + "/poster.png")
-                    .ratingCount(10000 + i)
-                    .ratingScore(8.1 + (i / 5 * 0.1))
-                    .language(Language.English)
-                    .releaseDate("2025-01-0" + (i % 9 + 1))
-                    .runtimeInMinutes(120 + (i % 10))
-                    .build();
+            var movie = new MovieSummary(
+                    i + 1,
+                    "movie title #" + i,
+                    LocalDate.parse("2025-01-0" + (i % 9 + 1)),
+                    "http://movie.test/movie/" + i + "/poster.png",
+                    8.1 + (i / 5 * 0.1),
+                    Genre.Drama,
+                    Language.English
+            );
             movies.add(movie);
         }
-        Mockito.doReturn(new PageImpl<>(movies)).when(moviesRepository).findAll(Mockito.any(PageRequest.class));
+        Mockito.doReturn(new SliceImpl<>(movies)).when(moviesRepository).findSummaries(Mockito.isNull(), Mockito.any(PageRequest.class));
 
-        var popularMovies = moviesService.getPopularMovies(null);
+        var popularMovies = moviesService.getPopularMovies(null, null, false).movies();
 
         //validate result
         Assertions.assertEquals(50, popularMovies.size());
@@ -101,13 +186,13 @@ public class MoviesServiceUnitTests {
 
     @Test
     public void testPopularMovies_verifyRepositoryCall_withoutPagination_expectCallPageZero() {
-        Mockito.doReturn(new PageImpl<>(Collections.emptyList()))
-                .when(moviesRepository).findAll(Mockito.any(PageRequest.class));
+        Mockito.doReturn(new SliceImpl<>(Collections.emptyList()))
+                .when(moviesRepository).findSummaries(Mockito.isNull(), Mockito.any(PageRequest.class));
 
-        moviesService.getPopularMovies(null);
+        moviesService.getPopularMovies(null, null, false);
 
         ArgumentCaptor<PageRequest> pageRequestCaptor = ArgumentCaptor.forClass(PageRequest.class);
-        Mockito.verify(moviesRepository).findAll(pageRequestCaptor.capture());
+        Mockito.verify(moviesRepository).findSummaries(Mockito.isNull(), pageRequestCaptor.capture());
         //validate function called
         Assertions.assertTrue(pageRequestCaptor.getValue().getSort().isSorted());
         Assertions.assertEquals(0, pageRequestCaptor.getValue().getPageNumber());
@@ -116,13 +201,13 @@ public class MoviesServiceUnitTests {
 
     @Test
     public void testPopularMovies_verifyRepositoryCall_withPagination_expectCallSpecifiedPage() {
-        Mockito.doReturn(new PageImpl<>(Collections.emptyList()))
-                .when(moviesRepository).findAll(Mockito.any(PageRequest.class));
+        Mockito.doReturn(new SliceImpl<>(Collections.emptyList()))
+                .when(moviesRepository).findSummaries(Mockito.isNull(), Mockito.any(PageRequest.class));
 
-        moviesService.getPopularMovies(2);
+        moviesService.getPopularMovies(2, null, false);
 
         ArgumentCaptor<PageRequest> pageRequestCaptor = ArgumentCaptor.forClass(PageRequest.class);
-        Mockito.verify(moviesRepository).findAll(pageRequestCaptor.capture());
+        Mockito.verify(moviesRepository).findSummaries(Mockito.isNull(), pageRequestCaptor.capture());
         //validate function called
         Assertions.assertTrue(pageRequestCaptor.getValue().getSort().isSorted());
         Assertions.assertEquals(1, pageRequestCaptor.getValue().getPageNumber());
@@ -134,8 +219,8 @@ public class MoviesServiceUnitTests {
         ArgumentCaptor<Specification<MovieEntity>> specificationCaptor = ArgumentCaptor.forClass(Specification.class);
         ArgumentCaptor<PageRequest> pageRequestCaptor = ArgumentCaptor.forClass(PageRequest.class);
 
-        Mockito.doReturn(new PageImpl<>(Collections.emptyList()))
-                .when(moviesRepository).findAll(specificationCaptor.capture(), pageRequestCaptor.capture());
+        Mockito.doReturn(new SliceImpl<>(Collections.emptyList()))
+                .when(moviesRepository).findSummaries(specificationCaptor.capture(), pageRequestCaptor.capture());
 
 
         moviesService.searchMovies(SearchMoviesRequest.builder()
@@ -149,6 +234,245 @@ public class MoviesServiceUnitTests {
         Assertions.assertEquals(expectedSort, pageRequestCaptor.getValue().getSort());
 
         Assertions.assertEquals(0, pageRequestCaptor.getValue().getPageNumber());
-        Assertions.assertEquals(10, pageRequestCaptor.getValue().getPageSize());
+        //the first page is fetched as large as a cacheable result
+        Assertions.assertEquals(200, pageRequestCaptor.getValue().getPageSize());
+    }
+
+    @Test
+    public void testSearchMovies_refinedRequest_answeredFromCachedResult() {
+        var movies = new ArrayList<MovieSummary>();
+        for (int i = 1; i <= 30; i++)
+            movies.add(new MovieSummary(i, (i % 2 == 0 ? "star wars #" : "star trek #") + i, LocalDate.of(2000 + i, 1, 1), "",
+                    5.0 + (i % 5), Genre.Drama, Language.English));
+        Mockito.doReturn(new SliceImpl<>(movies, PageRequest.of(0, 200), false))
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+
+        moviesService.searchMovies(SearchMoviesRequest.builder().query("Star").sortBy("id").build());
+        var refinedMovies = moviesService.searchMovies(SearchMoviesRequest.builder()
+                .query("star WARS")
+                .sortBy("averageRating")
+                .sortDirection(Sort.Direction.DESC)
+                .releaseDateFrom("2010")
+                .minRating(8.0)
+                .includeTotal(true)
+                .build());
+
+        Assertions.assertEquals(List.of(24, 14, 28, 18), refinedMovies.movies().stream().map(movie -> movie.id()).toList());
+        Assertions.assertEquals(4, refinedMovies.totalCount());
+        Mockito.verify(moviesRepository, Mockito.times(1)).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    public void testSearchMovies_ratingsChanged_expectCachedResultUpdated() {
+        var movies = List.of(
+                new MovieSummary(1, "star wars", LocalDate.of(2001, 1, 1), "", 8.5, Genre.Drama, Language.English),
+                new MovieSummary(2, "star trek", LocalDate.of(2002, 1, 1), "", 8.0, Genre.Drama, Language.English));
+        Mockito.doReturn(new SliceImpl<>(movies, PageRequest.of(0, 200), false))
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+        var request = SearchMoviesRequest.builder().query("star").sortBy("averageRating").sortDirection(Sort.Direction.DESC).minRating(8.0).build();
+        moviesService.searchMovies(request);
+
+        // movie 2 is rated up, movie 1 falls below the minimum rating, and movie 3 reaches it
+        searchResultCache.onMovieRatingsChanged(new MovieRatingsChangedEvent(List.of(
+                new MovieRating(1, "star wars", LocalDate.of(2001, 1, 1), "", 7.5, 10, Genre.Drama, Language.English, Instant.now()),
+                new MovieRating(2, "star trek", LocalDate.of(2002, 1, 1), "", 9.0, 10, Genre.Drama, Language.English, Instant.now()),
+                new MovieRating(3, "star dust", LocalDate.of(2003, 1, 1), "", 8.2, 10, Genre.Drama, Language.English, Instant.now()),
+                new MovieRating(4, "dune", LocalDate.of(2004, 1, 1), "", 9.5, 10, Genre.Drama, Language.English, Instant.now()))));
+        var updatedMovies = moviesService.searchMovies(request);
+
+        Assertions.assertEquals(List.of(2, 3), updatedMovies.movies().stream().map(movie -> movie.id()).toList());
+        Assertions.assertEquals(9.0, updatedMovies.movies().get(0).averageRating());
+        Mockito.verify(moviesRepository, Mockito.times(1)).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    public void testSearchMovies_oversizedResult_expectOnlyFirstPageFetchedAgain() {
+        var movies = new ArrayList<MovieSummary>();
+        for (int i = 1; i <= 200; i++)
+            movies.add(new MovieSummary(i, "star wars #" + i, LocalDate.of(2000, 1, 1), "", 5.0, Genre.Drama, Language.English));
+        Mockito.doAnswer(invocation -> {
+                    Pageable pageable = invocation.getArgument(1);
+                    return new SliceImpl<>(movies.subList(0, pageable.getPageSize()), pageable, true);
+                })
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+        var request = SearchMoviesRequest.builder().query("star").sortBy("id").build();
+
+        var firstMovies = moviesService.searchMovies(request);
+        var secondMovies = moviesService.searchMovies(request);
+
+        var pageRequestCaptor = ArgumentCaptor.forClass(PageRequest.class);
+        Mockito.verify(moviesRepository, Mockito.times(2)).findSummaries(Mockito.any(), pageRequestCaptor.capture());
+        Assertions.assertEquals(List.of(200, 10), pageRequestCaptor.getAllValues().stream().map(PageRequest::getPageSize).toList());
+        Assertions.assertEquals(firstMovies.movies(), secondMovies.movies());
+        Assertions.assertEquals(firstMovies.nextCursor(), secondMovies.nextCursor());
+    }
+
+    @Test
+    public void testSearchMovies_broaderRequest_notAnsweredFromCachedResult() {
+        Mockito.doReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 200), false))
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+
+        moviesService.searchMovies(SearchMoviesRequest.builder().query("star wars").sortBy("id").minRating(8.0).build());
+        moviesService.searchMovies(SearchMoviesRequest.builder().query("star").sortBy("id").minRating(8.0).build());
+        moviesService.searchMovies(SearchMoviesRequest.builder().query("star wars").sortBy("id").build());
+
+        Mockito.verify(moviesRepository, Mockito.times(3)).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    public void testSearchMovies_inMemoryIndex_filterSortAndLoadOnlyResultPage() {
+        var indexedMovies = new ArrayList<IndexedMovie>();
+        for (int i = 1; i <= 20; i++)
+            indexedMovies.add(new IndexedMovie(i, "the movie #" + i, LocalDate.of(2000 + i, 1, 1), 5.0 + (i % 5),
+                    Genre.Drama, Language.English));
+        Mockito.doReturn(true).when(titleSearchIndex).isAvailable();
+        Mockito.doReturn(indexedMovies.stream().filter(movie -> movie.releaseDate().getYear() >= 2005 && movie.ratingScore() >= 7.0).toList())
+                .when(titleSearchIndex).search(Mockito.any(SearchFilters.class));
+        // the repository returns the page rows in a different order than the result
+        Mockito.doAnswer(invocation -> new SliceImpl<>(indexedMovies.stream()
+                        .sorted(Comparator.comparingInt(IndexedMovie::id).reversed())
+                        .map(movie -> new MovieSummary(movie.id(), "the movie #" + movie.id(), movie.releaseDate(), "",
+                                movie.ratingScore(), movie.genre(), movie.language()))
+                        .toList()))
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.eq(Pageable.unpaged()));
+
+        var movies = moviesService.searchMovies(SearchMoviesRequest.builder()
+                .query("The")
+                .sortBy("averageRating")
+                .sortDirection(Sort.Direction.DESC)
+                .releaseDateFrom("2005")
+                .minRating(7.0)
+                .build());
+
+        //movies with rating 9 come first, equal ratings are ordered by id in the same direction
+        Assertions.assertEquals(List.of(19, 14, 9, 18, 13, 8, 17, 12, 7), movies.movies().stream().map(movie -> movie.id()).toList());
+        Assertions.assertNull(movies.nextCursor());
+        Mockito.verify(moviesRepository, Mockito.never()).findSummaries(Mockito.any(), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    public void testSearchMovies_inMemoryIndex_nextPageByCursor() {
+        var indexedMovies = new ArrayList<IndexedMovie>();
+        for (int i = 1; i <= 25; i++)
+            indexedMovies.add(new IndexedMovie(i, "the movie #" + i, LocalDate.of(2000, 1, 1), 5.0 + (i % 2),
+                    Genre.Drama, Language.English));
+        Mockito.doReturn(true).when(titleSearchIndex).isAvailable();
+        Mockito.doReturn(indexedMovies).when(titleSearchIndex).search(Mockito.any(SearchFilters.class));
+        Mockito.doAnswer(invocation -> new SliceImpl<>(indexedMovies.stream()
+                        .map(movie -> new MovieSummary(movie.id(), "the movie #" + movie.id(), movie.releaseDate(), "",
+                                movie.ratingScore(), movie.genre(), movie.language()))
+                        .toList()))
+                .when(moviesRepository).findSummaries(Mockito.any(), Mockito.eq(Pageable.unpaged()));
+        var request = SearchMoviesRequest.builder()
+                .query("the")
+                .sortBy("averageRating")
+                .sortDirection(Sort.Direction.DESC);
+
+        var firstPage = moviesService.searchMovies(request.includeTotal(true).build());
+        var secondPage = moviesService.searchMovies(request.cursor(firstPage.nextCursor()).build());
+
+        Assertions.assertEquals(List.of(25, 23, 21, 19, 17, 15, 13, 11, 9, 7), firstPage.movies().stream().map(movie -> movie.id()).toList());
+        Assertions.assertEquals(List.of(5, 3, 1, 24, 22, 20, 18, 16, 14, 12), secondPage.movies().stream().map(movie -> movie.id()).toList());
+        Assertions.assertNotNull(secondPage.nextCursor());
+        Assertions.assertEquals(25, firstPage.totalCount());
+    }
+
+    @Test
+    public void testAutocompleteTitles_limitMoreThanSize_throwsInputParamException() {
+        Mockito.doReturn(true).when(titleAutocompleteIndex).isAvailable();
+        Mockito.doReturn(List.of(new MovieTitle(1, "Star Wars", 8.6, 1000)))
+                .when(titleAutocompleteIndex).suggest("sta", 10);
+
+        var movies = moviesService.autocompleteTitles("sta", null);
+
+        Assertions.assertEquals(List.of(new MovieSuggestionResponse(1, "Star Wars", 8.6)), movies);
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.autocompleteTitles("sta", 11));
+    }
+
+    @Test
+    public void testGetSearchFacets_withoutIndex_expectGroupByCountsWithoutOwnFacetFilter() {
+        Mockito.doReturn(false).when(titleSearchIndex).isAvailable();
+        Mockito.doReturn(Map.of(Genre.Drama, 4L, Genre.Action, 2L))
+                .when(moviesRepository).countGroupedBy(Mockito.any(), Mockito.eq("genre"), Mockito.eq(Genre.class));
+        Mockito.doReturn(Map.of(Language.English, 3L))
+                .when(moviesRepository).countGroupedBy(Mockito.any(), Mockito.eq("language"), Mockito.eq(Language.class));
+
+        var facets = moviesService.getSearchFacets(SearchMoviesRequest.builder()
+                .query("the")
+                .genres(Set.of(Genre.Action))
+                .build());
+
+        Assertions.assertEquals(2, facets.totalCount());
+        Assertions.assertEquals(4, facets.genres().get(Genre.Drama));
+        Assertions.assertEquals(0, facets.genres().get(Genre.Comedy));
+        Assertions.assertEquals(3, facets.languages().get(Language.English));
+        Assertions.assertEquals(0, facets.languages().get(Language.French));
+    }
+
+    @Test
+    public void testSearchMovies_cursorOfAnotherSort_throwsInputParamException() {
+        Mockito.doReturn(true).when(titleSearchIndex).isAvailable();
+        var cursor = new PageCursor("ratingScore", Sort.Direction.DESC, 8.0, 10).encode();
+
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.searchMovies(SearchMoviesRequest.builder()
+                .query("the")
+                .sortBy("id")
+                .sortDirection(Sort.Direction.ASC)
+                .cursor(cursor)
+                .build()));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getPopularMovies(null, "invalid", false));
+    }
+
+    @Test
+    public void testPopularMovies_lastPageAndTotal_expectNoNextCursorAndEstimatedTotal() {
+        var movie = new MovieSummary(1, "movie title", LocalDate.of(2025, 1, 1), "", 8.0, Genre.Drama, Language.English);
+        Mockito.doReturn(new SliceImpl<>(List.of(movie), PageRequest.of(0, 50), false))
+                .when(moviesRepository).findSummaries(Mockito.isNull(), Mockito.any(PageRequest.class));
+        Mockito.doReturn(1000L).when(catalogueStatisticsService).getEstimatedMovieCount();
+
+        var popularMovies = moviesService.getPopularMovies(null, null, true);
+
+        Assertions.assertEquals(1, popularMovies.movies().size());
+        Assertions.assertNull(popularMovies.nextCursor());
+        Assertions.assertEquals(1000L, popularMovies.totalCount());
+        Mockito.verify(moviesRepository, Mockito.never()).count();
+    }
+
+    @Test
+    public void testGetValidReleaseDate_monthAndYear_expectWholeRange() {
+        Assertions.assertEquals(LocalDate.of(2024, 2, 1), moviesService.getValidReleaseDate("2024-02", true));
+        Assertions.assertEquals(LocalDate.of(2024, 2, 29), moviesService.getValidReleaseDate("2024-02", false));
+        Assertions.assertEquals(LocalDate.of(2023, 1, 1), moviesService.getValidReleaseDate("2023", true));
+        Assertions.assertEquals(LocalDate.of(2023, 12, 31), moviesService.getValidReleaseDate("2023", false));
+        Assertions.assertEquals(LocalDate.of(2023, 7, 15), moviesService.getValidReleaseDate("2023-07-15", false));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getValidReleaseDate("2023-13", true));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getValidReleaseDate("2023-02-30", true));
+        Assertions.assertThrows(InputParamException.class, () -> moviesService.getValidReleaseDate("23-01-01", true));
+    }
+
+    @Test
+    public void testGetValidReleaseDate_concurrentCalls_expectNoCorruptedDates() throws Exception {
+        var executor = Executors.newFixedThreadPool(16);
+        try {
+            var tasks = new ArrayList<Callable<Boolean>>();
+            for (int thread = 0; thread < 16; thread++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        var date = LocalDate.of(1950 + i % 75, i % 12 + 1, i % 28 + 1);
+                        var month = YearMonth.from(date);
+                        // distinct inputs bypass the cache, so the parsing itself runs concurrently
+                        if (!date.equals(moviesService.getValidReleaseDate(date.toString(), true))
+                                || !month.atEndOfMonth().equals(moviesService.getValidReleaseDate(month.toString(), false))
+                                || !LocalDate.of(date.getYear(), 12, 31).equals(moviesService.getValidReleaseDate(String.valueOf(date.getYear()), false)))
+                            return false;
+                    }
+                    return true;
+                });
+            }
+            for (var result : executor.invokeAll(tasks))
+                Assertions.assertTrue(result.get());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 }
@@ -0,0 +1,82 @@
+package sample.mrezaei.movies.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.services.model.ApiKeyQuota;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitServiceUnitTests {
+    private final AtomicLong now = new AtomicLong(123_456_789L);
+
+    private final RateLimitService rateLimitService = new RateLimitService(new MoviesProperties(), now::get);
+
+    @Test
+    public void testTryAcquire_burstExhausted_expectWaitUntilNextToken() {
+        var quota = new ApiKeyQuota(1, 10, 3);
+
+        for (int i = 0; i < 3; i++)
+            Assertions.assertEquals(0, rateLimitService.tryAcquire(quota));
+        var waitNanos = rateLimitService.tryAcquire(quota);
+
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), waitNanos);
+        Assertions.assertEquals(1, RateLimitService.toRetryAfterSeconds(waitNanos));
+        now.addAndGet(waitNanos);
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(quota));
+        Assertions.assertTrue(rateLimitService.tryAcquire(quota) > 0);
+    }
+
+    @Test
+    public void testTryAcquire_keysHaveSeparateBuckets() {
+        var firstQuota = new ApiKeyQuota(1, 1, 1);
+        var secondQuota = new ApiKeyQuota(2, 1, 1);
+
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(firstQuota));
+        Assertions.assertTrue(rateLimitService.tryAcquire(firstQuota) > 0);
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(secondQuota));
+        // a changed quota of the same key starts with a full bucket
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(new ApiKeyQuota(1, 2, 2)));
+    }
+
+    @Test
+    public void testRemoveFullBuckets_idleBucket_expectSameBehaviour() {
+        var quota = new ApiKeyQuota(1, 1, 1);
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(quota));
+
+        rateLimitService.removeFullBuckets();
+        Assertions.assertTrue(rateLimitService.tryAcquire(quota) > 0);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        rateLimitService.removeFullBuckets();
+        Assertions.assertEquals(0, rateLimitService.tryAcquire(quota));
+    }
+
+    @Test
+    public void testTryAcquire_concurrentRequests_expectExactlyBurstAllowed() throws Exception {
+        var quota = new ApiKeyQuota(1, 1, 500);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var tasks = new ArrayList<Callable<Integer>>();
+            for (int thread = 0; thread < 8; thread++) {
+                tasks.add(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 1_000; i++)
+                        if (rateLimitService.tryAcquire(quota) == 0)
+                            allowed++;
+                    return allowed;
+                });
+            }
+            int allowed = 0;
+            for (var result : executor.invokeAll(tasks))
+                allowed += result.get();
+            Assertions.assertEquals(500, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
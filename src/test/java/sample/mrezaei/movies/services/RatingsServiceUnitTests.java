@@ -0,0 +1,193 @@
+package sample.mrezaei.movies.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.data.listeners.MovieRatingsChangedEvent;
+import sample.mrezaei.movies.data.projections.MovieRating;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.exceptions.MovieNotFoundException;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+public class RatingsServiceUnitTests {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MoviesRepository moviesRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RatingsService ratingsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ratingsService = new RatingsService(jdbcTemplate, transactionManager, moviesRepository, eventPublisher, Runnable::run);
+        Mockito.when(moviesRepository.findById(1)).thenReturn(Optional.of(movie(1, 8.0, 3)));
+        Mockito.when(moviesRepository.findById(2)).thenReturn(Optional.of(movie(2, 5.0, 1)));
+    }
+
+    @Test
+    public void testRate_expectAverageWithPendingRatings() {
+        var first = ratingsService.rate(1, 4);
+        var second = ratingsService.rate(1, 10);
+
+        Assertions.assertEquals(1, first.id());
+        Assertions.assertEquals(7.0, first.averageRating());
+        Assertions.assertEquals(4, first.ratingCount());
+        Assertions.assertEquals(7.6, second.averageRating(), 1e-9);
+        Assertions.assertEquals(5, second.ratingCount());
+        // only the first rating of a movie reads the database
+        Mockito.verify(moviesRepository, Mockito.times(1)).findById(1);
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testRate_invalidInput_expectException() {
+        Assertions.assertThrows(InputParamException.class, () -> ratingsService.rate(1, 0));
+        Assertions.assertThrows(InputParamException.class, () -> ratingsService.rate(1, 11));
+        Assertions.assertThrows(InputParamException.class, () -> ratingsService.rate(1, null));
+        Assertions.assertThrows(MovieNotFoundException.class, () -> ratingsService.rate(3, 5));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlush_expectOneBatchOfDeltasOrderedById() throws Exception {
+        mockBatchUpdate();
+        Mockito.when(moviesRepository.findRatings(ArgumentMatchers.any())).thenReturn(List.of(rating(1, 7.6, 5), rating(2, 6.0, 2)));
+        ratingsService.rate(2, 7);
+        ratingsService.rate(1, 4);
+        ratingsService.rate(1, 10);
+
+        Assertions.assertEquals(2, ratingsService.flush());
+
+        var entries = ArgumentCaptor.forClass(Collection.class);
+        var setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        Mockito.verify(jdbcTemplate).batchUpdate(ArgumentMatchers.anyString(), entries.capture(), ArgumentMatchers.eq(2), setter.capture());
+        var statement = Mockito.mock(PreparedStatement.class);
+        var flushed = new ArrayList<Map.Entry<Integer, Long>>(entries.getValue());
+        Assertions.assertEquals(List.of(1, 2), flushed.stream().map(Map.Entry::getKey).toList());
+        setter.getValue().setValues(statement, flushed.get(0));
+        Mockito.verify(statement).setLong(1, 14);
+        Mockito.verify(statement, Mockito.times(1)).setLong(2, 2);
+        Mockito.verify(statement, Mockito.times(1)).setLong(3, 2);
+        Mockito.verify(statement).setInt(4, 1);
+        var event = ArgumentCaptor.forClass(MovieRatingsChangedEvent.class);
+        Mockito.verify(eventPublisher).publishEvent(event.capture());
+        Assertions.assertEquals(List.of(1, 2), event.getValue().movies().stream().map(MovieRating::id).toList());
+        Mockito.verify(moviesRepository, Mockito.never()).findAllById(ArgumentMatchers.any());
+
+        // flushed ratings are kept in the average and are not written again
+        var rating = ratingsService.rate(1, 1);
+        Assertions.assertEquals(6.5, rating.averageRating(), 1e-9);
+        Assertions.assertEquals(6, rating.ratingCount());
+        Assertions.assertEquals(1, ratingsService.flush());
+        Assertions.assertEquals(0, ratingsService.flush());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlush_databaseFails_expectRatingsKeptForNextFlush() {
+        Mockito.when(jdbcTemplate.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.any(Collection.class), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenAnswer(invocation -> new int[][]{{1}});
+        ratingsService.rate(1, 4);
+
+        Assertions.assertThrows(QueryTimeoutException.class, () -> ratingsService.flush());
+        Assertions.assertEquals(5, ratingsService.rate(1, 4).ratingCount());
+        Assertions.assertEquals(1, ratingsService.flush());
+
+        var entries = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).batchUpdate(ArgumentMatchers.anyString(), entries.capture(), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ParameterizedPreparedStatementSetter.class));
+        var retried = (Map.Entry<Integer, Long>) entries.getAllValues().get(1).iterator().next();
+        Assertions.assertEquals(2, retried.getValue() >>> 32);
+        Mockito.verify(transactionManager).rollback(ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testFlush_movieRemoved_expectRatingsDropped() {
+        mockBatchUpdate();
+        ratingsService.rate(1, 4);
+        ratingsService.onMovieChanged(new MovieChangedEvent(movie(1, 8.0, 3), true));
+
+        Assertions.assertEquals(0, ratingsService.flush());
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testRate_concurrentRatings_expectNoRatingLost() throws Exception {
+        int threads = 8, ratingsPerThread = 1_000;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++)
+            tasks.add(() -> {
+                for (int j = 0; j < ratingsPerThread; j++)
+                    ratingsService.rate(2, 5);
+                return null;
+            });
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (var future : executor.invokeAll(tasks))
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var rating = ratingsService.rate(2, 5);
+        Assertions.assertEquals(threads * ratingsPerThread + 2, rating.ratingCount());
+        Assertions.assertEquals(5.0, rating.averageRating(), 1e-9);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockBatchUpdate() {
+        Mockito.when(jdbcTemplate.batchUpdate(ArgumentMatchers.anyString(), ArgumentMatchers.any(Collection.class), ArgumentMatchers.anyInt(),
+                        ArgumentMatchers.any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    var counts = new int[invocation.<Collection<?>>getArgument(1).size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+    }
+
+    private static MovieRating rating(int id, double ratingScore, int ratingCount) {
+        return new MovieRating(id, "Movie " + id, null, null, ratingScore, ratingCount, null, null, Instant.ofEpochSecond(1000));
+    }
+
+    private static MovieEntity movie(int id, double ratingScore, int ratingCount) {
+        return MovieEntity.builder()
+                .id(id)
+                .title("Movie " + id)
+                .ratingScore(ratingScore)
+                .ratingCount(ratingCount)
+                .build();
+    }
+}
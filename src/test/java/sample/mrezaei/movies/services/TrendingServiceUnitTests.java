@@ -0,0 +1,135 @@
+package sample.mrezaei.movies.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.MovieEntity;
+import sample.mrezaei.movies.data.listeners.MovieChangedEvent;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.services.model.MovieDetailsResponse;
+import sample.mrezaei.movies.services.model.MovieListResponse;
+import sample.mrezaei.movies.services.model.MoviesBatchResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+public class TrendingServiceUnitTests {
+    private final MoviesService moviesService = Mockito.mock(MoviesService.class);
+
+    private TrendingService trendingService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        var trending = new MoviesProperties.Trending();
+        trending.setSlots(3);
+        trending.setSlotDuration(Duration.ofMinutes(5));
+        trending.setHalfLife(Duration.ofMinutes(5));
+        trending.setSize(3);
+        trendingService = new TrendingService(moviesService, trending);
+        Mockito.when(moviesService.getMoviesByIds(ArgumentMatchers.anyList())).thenAnswer(invocation -> new MoviesBatchResponse(
+                ((List<Integer>) invocation.getArgument(0)).stream().map(TrendingServiceUnitTests::movie).toList(), List.of()));
+    }
+
+    @Test
+    public void testGetTrendingMovies_expectMostViewedFirst() {
+        view(1, 2);
+        view(2, 5);
+        view(3, 3);
+        view(4, 1);
+
+        Assertions.assertEquals(List.of(2, 3, 1), ids(trendingService.getTrendingMovies(null)));
+        Assertions.assertEquals(List.of(2), ids(trendingService.getTrendingMovies(1)));
+        Assertions.assertEquals("Movie 2", trendingService.getTrendingMovies(1).get(0).title());
+        Assertions.assertThrows(InputParamException.class, () -> trendingService.getTrendingMovies(4));
+        Assertions.assertThrows(InputParamException.class, () -> trendingService.getTrendingMovies(0));
+    }
+
+    @Test
+    public void testGetTrendingMovies_noViews_expectEmptyWithoutLoading() {
+        Assertions.assertEquals(List.of(), trendingService.getTrendingMovies(null));
+        Mockito.verifyNoInteractions(moviesService);
+    }
+
+    @Test
+    public void testRotate_expectRecentViewsOutweighOlderViews() {
+        view(1, 10);
+        trendingService.rotate();
+        view(2, 6);
+
+        Assertions.assertEquals(List.of(2, 1), ids(trendingService.getTrendingMovies(null)));
+
+        // views older than all slots are forgotten
+        trendingService.rotate();
+        trendingService.rotate();
+        Assertions.assertEquals(List.of(2), ids(trendingService.getTrendingMovies(null)));
+        trendingService.rotate();
+        Assertions.assertEquals(List.of(), ids(trendingService.getTrendingMovies(null)));
+    }
+
+    @Test
+    public void testRecordView_manyDistinctMovies_expectHeavyHittersKept() {
+        // every movie is viewed once between the views of the popular ones, so the candidates are full of movies which are viewed once
+        for (int id = 100; id < 10_000; id++) {
+            trendingService.recordView(id);
+            if (id % 100 == 0) {
+                view(7, 3);
+                view(8, 2);
+                view(9, 1);
+            }
+        }
+
+        Assertions.assertEquals(List.of(7, 8, 9), ids(trendingService.getTrendingMovies(null)));
+    }
+
+    @Test
+    public void testOnMovieChanged_removedMovie_expectNotTrending() {
+        view(1, 2);
+        view(2, 1);
+        trendingService.onMovieChanged(new MovieChangedEvent(MovieEntity.builder().id(1).build(), true));
+
+        Assertions.assertEquals(List.of(2), ids(trendingService.getTrendingMovies(null)));
+    }
+
+    @Test
+    public void testRecordView_concurrentViews_expectTopMovie() throws Exception {
+        int threads = 8;
+        var tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            tasks.add(() -> {
+                for (int j = 0; j < 10_000; j++)
+                    trendingService.recordView(j % 2 == 0 ? 1 : 1_000 + thread * 10_000 + j);
+                return null;
+            });
+        }
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (var future : executor.invokeAll(tasks))
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, trendingService.getTrendingMovies(1).get(0).id());
+    }
+
+    private void view(int id, int times) {
+        for (int i = 0; i < times; i++)
+            trendingService.recordView(id);
+    }
+
+    private static List<Integer> ids(List<MovieListResponse> movies) {
+        return movies.stream().map(MovieListResponse::id).toList();
+    }
+
+    private static MovieDetailsResponse movie(int id) {
+        return new MovieDetailsResponse(id, "Movie " + id, "2020-01-01", null, null, null, 5.0, 100, null, 0, null);
+    }
+}
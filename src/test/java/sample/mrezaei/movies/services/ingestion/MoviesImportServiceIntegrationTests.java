@@ -0,0 +1,132 @@
+package sample.mrezaei.movies.services.ingestion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import sample.mrezaei.movies.exceptions.InputParamException;
+import sample.mrezaei.movies.services.MoviesCacheInvalidator;
+import sample.mrezaei.movies.services.search.FullTextIndex;
+import sample.mrezaei.movies.services.search.SearchFilters;
+import sample.mrezaei.movies.services.search.SearchResultCache;
+import sample.mrezaei.movies.services.search.TitleAutocompleteIndex;
+import sample.mrezaei.movies.services.search.TitleSearchIndex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ingested movies have a title prefix, and they are removed after each test so the sample data stays the same for other tests.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+public class MoviesImportServiceIntegrationTests {
+    private static final String TITLE_PREFIX = "Ingestion Test ";
+
+    @Autowired
+    private MoviesImportService moviesImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MoviesCacheInvalidator moviesCacheInvalidator;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private TitleSearchIndex titleSearchIndex;
+
+    @Autowired
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @AfterEach
+    public void removeIngestedMovies() {
+        jdbcTemplate.update("delete from movies where title like ?", TITLE_PREFIX + "%");
+        moviesCacheInvalidator.evictAll();
+        searchResultCache.invalidateAll();
+        titleSearchIndex.initIndex();
+        titleAutocompleteIndex.initIndex();
+        fullTextIndex.initIndex();
+    }
+
+    @Test
+    public void testImportMovies_csv_expectValidRowsWrittenAndInvalidRowsReported() throws Exception {
+        var csv = """
+                title,releaseDate,posterUrl,overview,genre,averageRating,ratingCount,runtime,language
+                Ingestion Test One,2020-01-01,http://poster/1.jpg,"A movie, with a comma in its overview",Drama,7.5,100,120,English
+                Ingestion Test Two,2021-02-02,http://poster/2.jpg,Second movie,Comedy,,,95,French
+                Ingestion Test Three,2022-03-03,http://poster/3.jpg,Invalid genre,Cartoon,6.0,10,90,English
+                Ingestion Test Four,2022-13-01,http://poster/4.jpg,Invalid date,Drama,6.0,10,90,English
+                """;
+
+        var report = moviesImportService.importMovies(toInput(csv), ImportFormat.CSV);
+
+        Assertions.assertEquals(4, report.readRows());
+        Assertions.assertEquals(2, report.writtenRows());
+        Assertions.assertEquals(2, report.rejectedRows());
+        Assertions.assertTrue(report.errors().get(0).contains("genre"), report.errors().toString());
+        Assertions.assertTrue(report.errors().get(1).contains("releaseDate"), report.errors().toString());
+        Assertions.assertEquals("A movie, with a comma in its overview",
+                jdbcTemplate.queryForObject("select overview from movies where title = ?", String.class, TITLE_PREFIX + "One"));
+        Assertions.assertEquals(0.0,
+                jdbcTemplate.queryForObject("select rating_score from movies where title = ?", Double.class, TITLE_PREFIX + "Two"));
+        // the ingested movies are searchable right after the ingestion
+        Assertions.assertEquals(2, titleSearchIndex.search("ingestion test").size());
+        Assertions.assertEquals(2, titleAutocompleteIndex.suggest("ingestion test", 10).size());
+        var filters = new SearchFilters("comma overview", null, null, null, null, null, false);
+        Assertions.assertEquals(1, fullTextIndex.search(filters, 10, null, 0).totalHits());
+    }
+
+    @Test
+    public void testImportMovies_ndjsonIngestedAgain_expectOnlyChangedMoviesUpdated() throws Exception {
+        var ndjson = """
+                {"title":"Ingestion Test One","releaseDate":"2020-01-01","posterUrl":"http://poster/1.jpg","overview":"First","genre":"Drama","averageRating":7.5,"ratingCount":100,"runtime":120,"language":"English"}
+                {"title":"Ingestion Test Two","releaseDate":"2021-02-02","posterUrl":"http://poster/2.jpg","overview":"Second","genre":"Comedy","averageRating":6.5,"ratingCount":10,"runtime":95,"language":"French"}
+                """;
+        moviesImportService.importMovies(toInput(ndjson), ImportFormat.NDJSON);
+        var firstVersion = getVersion("One");
+        var secondVersion = getVersion("Two");
+
+        // the second movie is repeated, the last one is written
+        var changed = ndjson
+                + """
+                {"title":"Ingestion Test Two","releaseDate":"2021-02-02","posterUrl":"http://poster/2.jpg","overview":"Second","genre":"Comedy","averageRating":8.0,"ratingCount":11,"runtime":95,"language":"French"}
+                """;
+        var report = moviesImportService.importMovies(toInput(changed), ImportFormat.NDJSON);
+
+        Assertions.assertEquals(3, report.readRows());
+        Assertions.assertEquals(2, report.writtenRows());
+        Assertions.assertEquals(0, report.rejectedRows());
+        Assertions.assertEquals(firstVersion, getVersion("One"));
+        Assertions.assertEquals(secondVersion + 1, getVersion("Two"));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from movies where title = ?", Integer.class, TITLE_PREFIX + "Two"));
+        Assertions.assertEquals(8.0,
+                jdbcTemplate.queryForObject("select rating_score from movies where title = ?", Double.class, TITLE_PREFIX + "Two"));
+    }
+
+    @Test
+    public void testImportMovies_brokenFile_expectException() {
+        var ndjson = """
+                {"title":"Ingestion Test One","releaseDate":"2020-01-01"
+                """;
+        Assertions.assertThrows(InputParamException.class, () -> moviesImportService.importMovies(toInput(ndjson), ImportFormat.NDJSON));
+        Assertions.assertThrows(InputParamException.class, () -> ImportFormat.fromFileName("movies.xml"));
+    }
+
+    private long getVersion(String title) {
+        return jdbcTemplate.queryForObject("select version from movies where title = ?", Long.class, TITLE_PREFIX + title);
+    }
+
+    private static ByteArrayInputStream toInput(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+package sample.mrezaei.movies.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.projections.MovieText;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FullTextIndexUnitTests {
+    private FullTextIndex fullTextIndex;
+
+    @BeforeEach
+    void setUp() {
+        fullTextIndex = new FullTextIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+        fullTextIndex.rebuild(List.of(
+                movie(1, "Toy Story", "Toys come to life when the boy is away.", 8.3),
+                movie(2, "Forrest Gump", "The story of a man who witnesses the history of America.", 8.8),
+                movie(3, "Apocalypse Now", "A captain is sent up a river during the war.", 8.4),
+                movie(4, "1917", "Two soldiers cross enemy land during the war, a story of a war.", 8.2),
+                movie(5, "The Notebook", "A love story.", 7.8)
+        ));
+    }
+
+    private static MovieText movie(int id, String title, String overview, double ratingScore) {
+        return new MovieText(id, title, overview, LocalDate.of(2000, 1, 1), ratingScore, Genre.Drama, Language.English);
+    }
+
+    private static SearchFilters filters(String query, Double minRating) {
+        return new SearchFilters(query, null, null, minRating, null, null, false);
+    }
+
+    private List<Integer> search(String query) {
+        return fullTextIndex.search(filters(query, null), 10, null, 0).movies().stream().map(FullTextIndex.ScoredMovie::id).toList();
+    }
+
+    @Test
+    public void testAnalyze_expectLowerCaseWordsWithoutStopWords() {
+        Assertions.assertEquals(List.of("lord", "rings", "fellowship", "ring"), FullTextIndex.analyze("The Lord of the Rings: The Fellowship of the Ring"));
+        Assertions.assertEquals(List.of(), FullTextIndex.analyze("the of a"));
+    }
+
+    @Test
+    public void testSearch_expectTitleWordsAndRareWordsRankedFirst() {
+        // the title word counts more than the same word in an overview, and a shorter overview counts more than a longer one
+        Assertions.assertEquals(List.of(1, 5, 2, 4), search("story"));
+        // a movie which has both words comes first, and the rare word counts more than the common one
+        Assertions.assertEquals(List.of(4, 3, 1, 5, 2), search("war story"));
+        Assertions.assertEquals(List.of(), search("the"));
+        Assertions.assertEquals(List.of(), search("dragons"));
+    }
+
+    @Test
+    public void testSearch_filtersAndCursor_expectPagesInRelevanceOrder() {
+        var hits = fullTextIndex.search(filters("war story", 8.3), 2, null, 0);
+        Assertions.assertEquals(3, hits.totalHits());
+        Assertions.assertEquals(List.of(3, 1), hits.movies().stream().map(FullTextIndex.ScoredMovie::id).toList());
+
+        var last = hits.movies().get(1);
+        hits = fullTextIndex.search(filters("war story", 8.3), 2, last.score(), last.id());
+        Assertions.assertEquals(3, hits.totalHits());
+        Assertions.assertEquals(List.of(2), hits.movies().stream().map(FullTextIndex.ScoredMovie::id).toList());
+    }
+
+    @Test
+    public void testSearch_manyMovies_expectHeapSameAsSortingAllHits() {
+        var movies = new ArrayList<MovieText>();
+        var words = List.of("war", "love", "story", "river", "space", "king", "dog", "city");
+        for (int i = 1; i <= 500; i++)
+            movies.add(movie(i, words.get(i % 8) + " " + i, words.get(i % 5) + " " + words.get(i % 7) + " " + words.get(i % 3), 5));
+        fullTextIndex.rebuild(movies);
+
+        var all = fullTextIndex.search(filters("war love king", null), movies.size(), null, 0);
+        var pages = new ArrayList<FullTextIndex.ScoredMovie>();
+        FullTextIndex.ScoredMovie last = null;
+        do {
+            var page = fullTextIndex.search(filters("war love king", null), 7, last == null ? null : last.score(), last == null ? 0 : last.id());
+            Assertions.assertEquals(all.totalHits(), page.totalHits());
+            pages.addAll(page.movies());
+            last = page.movies().isEmpty() ? null : page.movies().get(page.movies().size() - 1);
+        } while (last != null);
+
+        Assertions.assertEquals(all.totalHits(), all.movies().size());
+        Assertions.assertEquals(all.movies(), pages);
+        for (int i = 1; i < pages.size(); i++)
+            Assertions.assertTrue(pages.get(i - 1).score() >= pages.get(i).score());
+    }
+
+    @Test
+    public void testPutAndRemove_expectIndexUpToDate() {
+        fullTextIndex.put(movie(6, "Dragonheart", "A knight and a dragon.", 6.5));
+        fullTextIndex.put(movie(5, "The Notebook", "A love letter.", 7.8));
+        fullTextIndex.remove(1);
+
+        Assertions.assertEquals(List.of(6), search("dragon"));
+        Assertions.assertEquals(List.of(2, 4), search("story"));
+        Assertions.assertEquals(List.of(5), search("letter"));
+    }
+
+    @Test
+    public void testPut_sameText_expectPostingListsNotEncodedAgain() {
+        var story = fullTextIndex.postingList("story");
+        var love = fullTextIndex.postingList("love");
+        var notebook = fullTextIndex.postingList("notebook");
+        fullTextIndex.put(movie(5, "The Notebook", "A love story.", 6.0));
+
+        Assertions.assertSame(story, fullTextIndex.postingList("story"));
+        Assertions.assertSame(love, fullTextIndex.postingList("love"));
+        Assertions.assertSame(notebook, fullTextIndex.postingList("notebook"));
+        // the changed rating is still seen by the filters
+        Assertions.assertEquals(0, fullTextIndex.search(filters("notebook", 7.0), 10, null, 0).totalHits());
+
+        // only the posting lists of the changed words are encoded again
+        fullTextIndex.put(movie(5, "The Notebook", "A love story, a love letter.", 6.0));
+        Assertions.assertSame(story, fullTextIndex.postingList("story"));
+        Assertions.assertSame(notebook, fullTextIndex.postingList("notebook"));
+        Assertions.assertNotSame(love, fullTextIndex.postingList("love"));
+        Assertions.assertEquals(List.of(5), search("letter"));
+    }
+
+    @Test
+    public void testPostingList_expectSameEntriesAfterEncoding() {
+        var postingList = PostingList.encode(new int[]{3, 200, 100_000, Integer.MAX_VALUE}, new int[]{1, 300, 2, 5}, 4);
+        postingList = postingList.with(150, 4).with(200, 7).without(3);
+
+        var entries = new ArrayList<List<Integer>>();
+        postingList.forEach((id, frequency) -> entries.add(List.of(id, frequency)));
+        Assertions.assertEquals(List.of(List.of(150, 4), List.of(200, 7), List.of(100_000, 2), List.of(Integer.MAX_VALUE, 5)), entries);
+        Assertions.assertEquals(4, postingList.size());
+        Assertions.assertTrue(postingList.byteSize() < 4 * 8);
+        Assertions.assertNull(PostingList.encode(new int[]{1}, new int[]{1}, 1).without(1));
+    }
+}
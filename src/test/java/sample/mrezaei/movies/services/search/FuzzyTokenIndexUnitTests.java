@@ -0,0 +1,65 @@
+package sample.mrezaei.movies.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class FuzzyTokenIndexUnitTests {
+
+    @Test
+    public void testDistance_expectOptimalStringAlignmentDistance() {
+        Assertions.assertEquals(0, FuzzyTokenIndex.distance("rings", "rings", 2));
+        Assertions.assertEquals(1, FuzzyTokenIndex.distance("rigns", "rings", 2));
+        Assertions.assertEquals(1, FuzzyTokenIndex.distance("ring", "rings", 2));
+        Assertions.assertEquals(2, FuzzyTokenIndex.distance("intersteler", "interstellar", 2));
+        Assertions.assertEquals(3, FuzzyTokenIndex.distance("matrix", "mattress", 2));
+        Assertions.assertEquals(2, FuzzyTokenIndex.distance("abc", "abcdef", 1));
+    }
+
+    @Test
+    public void testTokens_expectWordsOfLettersAndDigits() {
+        Assertions.assertEquals(Set.of("the", "lord", "of", "rings", "fellowship", "ring"),
+                FuzzyTokenIndex.tokens("the lord of the rings: the fellowship of the ring"));
+        Assertions.assertEquals(Set.of("l", "a", "confidential"), FuzzyTokenIndex.tokens("l.a. confidential"));
+    }
+
+    @Test
+    public void testMatch_expectEveryQueryWordMatchedWithinAllowedEdits() {
+        var index = new FuzzyTokenIndex(2);
+        index.add(1, "the lord of the rings");
+        index.add(2, "lord of war");
+        index.add(3, "interstellar");
+        index.add(4, "it");
+
+        Assertions.assertEquals(List.of(1, 2), ids(index.match("lrod")));
+        Assertions.assertEquals(List.of(1), ids(index.match("lord rigns")));
+        Assertions.assertEquals(List.of(3), ids(index.match("intersteler")));
+        // words of two characters must match exactly
+        Assertions.assertEquals(List.of(4), ids(index.match("it")));
+        Assertions.assertEquals(List.of(), ids(index.match("at")));
+        Assertions.assertNull(index.match(" : "));
+
+        index.remove(2, "lord of war");
+        Assertions.assertEquals(List.of(1), ids(index.match("lrod")));
+        Assertions.assertEquals(List.of(), ids(index.match("war")));
+    }
+
+    @Test
+    public void testMatch_maxEditsOne_expectLongWordsMatchedWithOneEdit() {
+        var index = FuzzyTokenIndex.build(List.of(
+                new IndexedMovie(1, "interstellar", null, null, null, null)
+        ), 1);
+
+        Assertions.assertEquals(List.of(1), ids(index.match("intersteller")));
+        Assertions.assertEquals(List.of(), ids(index.match("intersteler")));
+    }
+
+    private static List<Integer> ids(Bitmap bitmap) {
+        var ids = new ArrayList<Integer>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,139 @@
+package sample.mrezaei.movies.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.projections.MovieTitle;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+public class TitleAutocompleteIndexUnitTests {
+    private TitleAutocompleteIndex titleAutocompleteIndex;
+
+    @BeforeEach
+    void setUp() {
+        var moviesProperties = new MoviesProperties();
+        moviesProperties.getSearch().setAutocompleteSize(3);
+        titleAutocompleteIndex = new TitleAutocompleteIndex(Mockito.mock(MoviesRepository.class), moviesProperties);
+        titleAutocompleteIndex.rebuild(List.of(
+                new MovieTitle(1, "Mad Max: Fury Road", 8.1, 2000),
+                new MovieTitle(2, "The Dark Knight", 9.0, 3000),
+                new MovieTitle(3, "The Lord of the Rings", 8.8, 2500),
+                new MovieTitle(4, "Theory", 6.0, 100),
+                new MovieTitle(5, "Knight and Day", 6.3, 900),
+                new MovieTitle(6, "The Dark Tower", 5.6, 700),
+                new MovieTitle(7, "Dark Waters", 7.6, 400),
+                new MovieTitle(8, "The Darkest Hour", 7.6, 600)
+        ));
+    }
+
+    private List<Integer> suggest(String prefix, int limit) {
+        return titleAutocompleteIndex.suggest(prefix, limit).stream().map(MovieTitle::id).toList();
+    }
+
+    @Test
+    public void testSuggest_titlePrefix_expectBestRatedFirst() {
+        Assertions.assertEquals(List.of(2, 3, 8), suggest("the", 10));
+        Assertions.assertEquals(List.of(2, 3), suggest("THE", 2));
+        Assertions.assertEquals(List.of(4), suggest("theo", 10));
+    }
+
+    @Test
+    public void testSuggest_wordPrefix_expectMatchedAnyWord() {
+        // equal scores are ranked by the rating count
+        Assertions.assertEquals(List.of(2, 8, 7), suggest("dark", 10));
+        Assertions.assertEquals(List.of(2, 5), suggest("kni", 10));
+        Assertions.assertEquals(List.of(2, 6), suggest("the dark ", 10));
+        Assertions.assertEquals(List.of(), suggest("ark", 10));
+        Assertions.assertEquals(List.of(), suggest("zzz", 10));
+    }
+
+    @Test
+    public void testPut_changedRating_expectRankedAgain() {
+        titleAutocompleteIndex.put(new MovieTitle(6, "The Dark Tower", 9.5, 700));
+        Assertions.assertEquals(List.of(6, 2, 8), suggest("dark", 10));
+
+        titleAutocompleteIndex.put(new MovieTitle(6, "The Tower", 9.5, 700));
+        Assertions.assertEquals(List.of(2, 8, 7), suggest("dark", 10));
+        Assertions.assertEquals(List.of(6), suggest("tow", 10));
+
+        titleAutocompleteIndex.put(new MovieTitle(9, "Darkman", 6.4, 50));
+        Assertions.assertEquals(List.of(9), suggest("darkm", 10));
+    }
+
+    @Test
+    public void testRemove_movieOfTopList_expectNextMovieMovedUp() {
+        titleAutocompleteIndex.remove(2);
+        Assertions.assertEquals(List.of(8, 7, 6), suggest("dark", 10));
+        Assertions.assertEquals(List.of(5), suggest("kni", 10));
+
+        titleAutocompleteIndex.remove(5);
+        Assertions.assertEquals(List.of(), suggest("kni", 10));
+    }
+
+    @Test
+    public void testPutAndRemove_sharedPrefixes_expectNodesSplitAndMerged() {
+        titleAutocompleteIndex.put(new MovieTitle(9, "Darkman", 6.4, 50));
+        titleAutocompleteIndex.put(new MovieTitle(10, "Darkness", 5.0, 50));
+        Assertions.assertEquals(List.of(9), suggest("darkm", 10));
+        Assertions.assertEquals(List.of(10), suggest("darkn", 10));
+        Assertions.assertEquals(List.of(), suggest("darkx", 10));
+
+        titleAutocompleteIndex.remove(9);
+        Assertions.assertEquals(List.of(), suggest("darkm", 10));
+        Assertions.assertEquals(List.of(10), suggest("darkne", 10));
+        titleAutocompleteIndex.remove(10);
+        Assertions.assertEquals(List.of(2, 8, 7), suggest("dark", 10));
+        Assertions.assertEquals(List.of(8), suggest("darke", 10));
+    }
+
+    @Test
+    public void testRebuild_manyMovies_expectSameAsSortedScan() {
+        var movies = new ArrayList<MovieTitle>();
+        for (int i = 1; i <= 1000; i++)
+            movies.add(new MovieTitle(i, "movie " + (i % 37) + " part " + i, (i * 7 % 100) / 10.0, i % 13));
+        titleAutocompleteIndex.rebuild(movies);
+        for (var prefix : List.of("movie 1", "part 2", "movie 36 part 1"))
+            Assertions.assertEquals(scan(movies, prefix), suggest(prefix, 3), prefix);
+    }
+
+    @Test
+    public void testPutAndRemove_randomChanges_expectSameAsSortedScan() {
+        var random = new Random(7);
+        var words = List.of("star", "start", "stark", "war", "wars", "warden", "the", "then", "a");
+        var movies = new HashMap<Integer, MovieTitle>();
+        titleAutocompleteIndex.rebuild(List.of());
+        for (int i = 0; i < 2000; i++) {
+            int id = random.nextInt(100);
+            if (random.nextInt(4) == 0) {
+                movies.remove(id);
+                titleAutocompleteIndex.remove(id);
+            } else {
+                var title = String.join(" ", random.ints(1 + random.nextInt(3), 0, words.size()).mapToObj(words::get).toList());
+                var movie = new MovieTitle(id, title, random.nextInt(100) / 10.0, random.nextInt(10));
+                movies.put(id, movie);
+                titleAutocompleteIndex.put(movie);
+            }
+        }
+        for (var prefix : List.of("s", "sta", "star", "stark", "war", "ward", "the s", "a w", "then war"))
+            Assertions.assertEquals(scan(movies.values(), prefix), suggest(prefix, 3), prefix);
+    }
+
+    private static List<Integer> scan(Collection<MovieTitle> movies, String prefix) {
+        return movies.stream()
+                .filter(movie -> TitleAutocompleteIndex.keys(movie.title()).stream().anyMatch(key -> key.startsWith(prefix)))
+                .sorted((a, b) -> a.ratingScore().equals(b.ratingScore())
+                        ? (a.ratingCount().equals(b.ratingCount()) ? Integer.compare(a.id(), b.id()) : b.ratingCount() - a.ratingCount())
+                        : Double.compare(b.ratingScore(), a.ratingScore()))
+                .limit(3)
+                .map(MovieTitle::id)
+                .toList();
+    }
+}
@@ -0,0 +1,137 @@
+package sample.mrezaei.movies.services.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import sample.mrezaei.movies.configurations.MoviesProperties;
+import sample.mrezaei.movies.data.entities.Genre;
+import sample.mrezaei.movies.data.entities.Language;
+import sample.mrezaei.movies.data.repositories.MoviesRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+public class TitleSearchIndexUnitTests {
+    private TitleSearchIndex titleSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        titleSearchIndex = new TitleSearchIndex(Mockito.mock(MoviesRepository.class), new MoviesProperties());
+        titleSearchIndex.rebuild(List.of(
+                movie(1, "Mad Max: Fury Road", Genre.Action, Language.English),
+                movie(2, "The Dark Knight", Genre.Action, Language.English),
+                movie(3, "The Lord of the Rings: The Fellowship of the Ring", Genre.Adventure, Language.English),
+                movie(4, "Theory", Genre.Drama, Language.French),
+                movie(5, "Knight and Day", Genre.Action, Language.French)
+        ));
+    }
+
+    private static IndexedMovie movie(int id, String title) {
+        return movie(id, title, Genre.Drama, Language.English);
+    }
+
+    private static IndexedMovie movie(int id, String title, Genre genre, Language language) {
+        return new IndexedMovie(id, IndexedMovie.normalize(title), LocalDate.of(2000, 1, 1), 8.0, genre, language);
+    }
+
+    private static SearchFilters filters(String query, Set<Genre> genres, Set<Language> languages) {
+        return new SearchFilters(query, null, null, null, genres, languages, false);
+    }
+
+    private List<Integer> search(String query) {
+        return titleSearchIndex.search(query).stream().map(IndexedMovie::id).toList();
+    }
+
+    @Test
+    public void testSearch_shortQuery_matchesSubstringIgnoringCase() {
+        Assertions.assertEquals(List.of(2, 3, 4), search("THE"));
+        Assertions.assertEquals(List.of(3, 4), search("Or"));
+        Assertions.assertEquals(List.of(1, 2, 3, 4, 5), search(""));
+    }
+
+    @Test
+    public void testSearch_longQuery_verifiesCandidatesBySubstring() {
+        Assertions.assertEquals(List.of(2, 5), search("knight"));
+        Assertions.assertEquals(List.of(3), search("of the ring"));
+        Assertions.assertEquals(List.of(3), search("the ring"));
+        Assertions.assertEquals(List.of(), search("night and dar"));
+    }
+
+    @Test
+    public void testPutAndRemove_keepIndexUpToDate() {
+        titleSearchIndex.put(movie(6, "The Dark Knight Rises"));
+        titleSearchIndex.put(movie(2, "Batman Begins"));
+        titleSearchIndex.remove(5);
+
+        Assertions.assertEquals(List.of(6), search("dark knight"));
+        Assertions.assertEquals(List.of(2), search("batman"));
+        Assertions.assertEquals(List.of(6), search("knight"));
+        Assertions.assertEquals(List.of(3, 4, 6), search("the"));
+    }
+
+    @Test
+    public void testSearch_genreAndLanguageFilters_expectIntersection() {
+        var movies = titleSearchIndex.search(filters("", Set.of(Genre.Action), Set.of(Language.French)));
+        Assertions.assertEquals(List.of(5), movies.stream().map(IndexedMovie::id).toList());
+
+        movies = titleSearchIndex.search(filters("the", Set.of(Genre.Action, Genre.Adventure), null));
+        Assertions.assertEquals(List.of(2, 3), movies.stream().map(IndexedMovie::id).toList());
+    }
+
+    @Test
+    public void testFacets_expectCountsWithoutOwnFacetFilter() {
+        var facets = titleSearchIndex.facets(filters("", null, null));
+        Assertions.assertEquals(5, facets.totalCount());
+        Assertions.assertEquals(3, facets.genres().get(Genre.Action));
+        Assertions.assertEquals(0, facets.genres().get(Genre.Comedy));
+        Assertions.assertEquals(2, facets.languages().get(Language.French));
+
+        // the genre filter does not change genre counts, it changes language counts
+        facets = titleSearchIndex.facets(filters("knight", Set.of(Genre.Action), Set.of(Language.English)));
+        Assertions.assertEquals(1, facets.totalCount());
+        Assertions.assertEquals(1, facets.genres().get(Genre.Action));
+        Assertions.assertEquals(1, facets.languages().get(Language.English));
+        Assertions.assertEquals(1, facets.languages().get(Language.French));
+    }
+
+    @Test
+    public void testPut_changedGenre_expectBitmapsUpToDate() {
+        titleSearchIndex.put(movie(4, "Theory", Genre.Comedy, Language.French));
+        titleSearchIndex.put(movie(1000, "Theory of Everything", Genre.Comedy, Language.English));
+        titleSearchIndex.remove(5);
+
+        var facets = titleSearchIndex.facets(filters("", null, null));
+        Assertions.assertEquals(5, facets.totalCount());
+        Assertions.assertEquals(0, facets.genres().get(Genre.Drama));
+        Assertions.assertEquals(2, facets.genres().get(Genre.Comedy));
+        Assertions.assertEquals(2, facets.genres().get(Genre.Action));
+        Assertions.assertEquals(1, facets.languages().get(Language.French));
+        Assertions.assertEquals(List.of(4, 1000), titleSearchIndex.search(filters("theory", Set.of(Genre.Comedy), null)).stream()
+                .map(IndexedMovie::id).toList());
+    }
+
+    @Test
+    public void testSearch_fuzzyQuery_expectMatchedWithTypos() {
+        var fuzzy = new SearchFilters("lord of the rigns", null, null, null, null, null, true);
+        Assertions.assertEquals(List.of(3), titleSearchIndex.search(fuzzy).stream().map(IndexedMovie::id).toList());
+        Assertions.assertEquals(List.of(), search("lord of the rigns"));
+
+        fuzzy = new SearchFilters("dark nite", null, null, null, null, null, true);
+        Assertions.assertEquals(List.of(), titleSearchIndex.search(fuzzy).stream().map(IndexedMovie::id).toList());
+        fuzzy = new SearchFilters("knigth", null, null, null, Set.of(Genre.Action), Set.of(Language.French), true);
+        Assertions.assertEquals(List.of(5), titleSearchIndex.search(fuzzy).stream().map(IndexedMovie::id).toList());
+    }
+
+    @Test
+    public void testPut_changedTitle_expectFuzzyTokensUpToDate() {
+        titleSearchIndex.put(movie(4, "Theory of Everything"));
+        titleSearchIndex.remove(5);
+
+        var fuzzy = new SearchFilters("evrything", null, null, null, null, null, true);
+        Assertions.assertEquals(List.of(4), titleSearchIndex.search(fuzzy).stream().map(IndexedMovie::id).toList());
+        fuzzy = new SearchFilters("knihgt", null, null, null, null, null, true);
+        Assertions.assertEquals(List.of(2), titleSearchIndex.search(fuzzy).stream().map(IndexedMovie::id).toList());
+    }
+}